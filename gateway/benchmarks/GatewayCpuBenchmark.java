@@ -0,0 +1,88 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный замер процессорного времени шлюза на один запрос (только Linux: читает /proc/<pid>/stat).
+//
+// Запуск:
+//   java gateway/benchmarks/GatewayCpuBenchmark.java <url> <pid шлюза> [потоков] [секунд] [X-Sharer-User-Id]
+//
+// Сравнение режимов: запустить шлюз с --shareit-server.pass-through=false и =true,
+// отключив отладочный лог RestTemplate (--logging.level.org.springframework.web.client.RestTemplate=INFO).
+public class GatewayCpuBenchmark {
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        long pid = Long.parseLong(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        String userId = args.length > 4 ? args[4] : null;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).GET();
+        if (userId != null) {
+            builder.header("X-Sharer-User-Id", userId);
+        }
+        HttpRequest request = builder.build();
+
+        // Прогрев: JIT и пулы соединений
+        run(client, request, threads, Math.max(5, seconds / 4));
+
+        long cpuBefore = cpuTicks(pid);
+        long started = System.nanoTime();
+        long[] result = run(client, request, threads, seconds);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        long cpuTicks = cpuTicks(pid) - cpuBefore;
+
+        long requests = result[0];
+        double cpuMillis = cpuTicks * 1000.0 / CLOCK_TICKS_PER_SECOND;
+        System.out.printf("requests=%d errors=%d rps=%.1f gatewayCpu=%.0fms cpuPerRequest=%.3fms%n",
+                requests, result[1], requests / elapsed, cpuMillis, cpuMillis / requests);
+    }
+
+    private static long[] run(HttpClient client, HttpRequest request, int threads, int seconds)
+            throws InterruptedException {
+        AtomicLong ok = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 30L, TimeUnit.SECONDS);
+        return new long[]{ok.get(), errors.get()};
+    }
+
+    // utime + stime процесса в тиках, поля 14 и 15 после имени команды
+    private static long cpuTicks(long pid) throws Exception {
+        String stat = Files.readString(Path.of("/proc/" + pid + "/stat"));
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    }
+}
@@ -0,0 +1,125 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный тест режима виртуальных потоков шлюза.
+//
+// Поднимает заглушку сервера, которая отвечает на любой запрос с задержкой и считает одновременно
+// обрабатываемые запросы, и нагружает шлюз заданным числом параллельных клиентов. Пока шлюз держит
+// поток на каждый ожидающий вызов, пик на заглушке не превышает server.tomcat.threads.max.
+//
+// Запуск:
+//   java gateway/benchmarks/VirtualThreadLoadTest.java <порт заглушки> <url шлюза> [клиентов] [секунд] [задержка, мс]
+// Шлюз запускается с --shareit-server.url=http://localhost:<порт заглушки> и достаточным пулом
+// (--shareit-server.http.max-total, --shareit-server.http.max-per-route), с
+// --spring.threads.virtual.enabled=true или без него.
+public class VirtualThreadLoadTest {
+    private static final byte[] STUB_BODY = "{\"id\":1,\"name\":\"stub\",\"email\":\"stub@example.com\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        int stubPort = Integer.parseInt(args[0]);
+        URI gateway = URI.create(args[1]);
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        long delayMillis = args.length > 4 ? Long.parseLong(args[4]) : 500;
+
+        // По умолчанию заглушка держит не больше 200 простаивающих соединений и закрывает остальные,
+        // из-за чего соединения в пуле шлюза устаревают
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(clients * 2));
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        HttpServer stub = HttpServer.create(new InetSocketAddress(stubPort), 4096);
+        stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stub.createContext("/", exchange -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, STUB_BODY.length);
+                exchange.getResponseBody().write(STUB_BODY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        stub.start();
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(gateway).timeout(Duration.ofSeconds(60)).GET().build();
+
+        // Прогрев, затем замер с обнулённым пиком
+        run(client, request, clients, Math.max(5, seconds / 4), new ArrayList<>());
+        peak.set(0);
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        long started = System.nanoTime();
+        long[] result = run(client, request, clients, seconds, latencies);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+        stub.stop(0);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("clients=%d delay=%dms requests=%d errors=%d rps=%.1f p50=%dms p99=%dms peakInFlight=%d%n",
+                clients, delayMillis, result[0], result[1], result[0] / elapsed,
+                percentile(sorted, 0.5), percentile(sorted, 0.99), peak.get());
+        System.exit(0);
+    }
+
+    private static long[] run(HttpClient client, HttpRequest request, int clients, int seconds, List<Long> latencies)
+            throws InterruptedException {
+        AtomicLong ok = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<byte[]> response = client.send(request,
+                                    HttpResponse.BodyHandlers.ofByteArray());
+                            if (response.statusCode() == 200) {
+                                ok.incrementAndGet();
+                                latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent));
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        return new long[]{ok.get(), errors.get()};
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.round(quantile * (sorted.size() - 1))));
+    }
+}
@@ -1,58 +1,98 @@
 package ru.practicum.shareit.booking.client;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private static final String ITEMS_PATH_PREFIX = "/items/";
 
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    private final GatewayResponseCache responseCache;
+
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl,
+                         @Value("${shareit-server.pass-through}") boolean passThrough,
+                         RestTemplateBuilder builder,
+                         ClientHttpRequestFactory streamRequestFactory,
+                         WebClient.Builder webClientBuilder,
+                         ClientHttpConnector serverHttpConnector,
+                         GatewayResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                        .requestFactory(() -> streamRequestFactory)
+                        .build(),
+                webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .clientConnector(serverHttpConnector)
+                        .build(),
+                passThrough
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> createBooking(Long userId, BookingRequestDto bookingRequestDto) {
+    public Mono<ResponseEntity<Object>> createBooking(Long userId, BookingRequestDto bookingRequestDto) {
         return post("", userId, bookingRequestDto);
     }
 
-    public ResponseEntity<Object> updateBookingStatus(Long userId, Long bookingId, Boolean approved) {
+    public Mono<ResponseEntity<Object>> updateBookingStatus(Long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of("approved", approved);
-        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
+        // Подтверждённое бронирование меняет последнее и следующее бронирование в карточке вещи у владельца.
+        // Вещь шлюзу по номеру бронирования неизвестна, поэтому сбрасываются все карточки
+        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null)
+                .doOnTerminate(() -> responseCache.evictByPrefix(ITEMS_PATH_PREFIX));
     }
 
-    public ResponseEntity<Object> getBookingById(Long userId, Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBookingById(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getUserBookings(Long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public Mono<ResponseEntity<Object>> getUserBookings(Long userId, BookingState state, Integer from, Integer size,
+                                                  String cursor) {
+        return get(bookingsQuery(cursor), userId, bookingsParameters(state, from, size, cursor));
+    }
+
+    public Mono<ResponseEntity<Object>> getOwnerBookings(Long userId, BookingState state, Integer from, Integer size,
+                                                   String cursor) {
+        return get("/owner" + bookingsQuery(cursor), userId, bookingsParameters(state, from, size, cursor));
+    }
+
+    public void exportOwnerBookings(Long userId, BookingState state, HttpServletResponse response)
+            throws IOException {
+        stream("/owner/export?state={state}", userId, Map.of("state", state.name()), response);
     }
 
-    public ResponseEntity<Object> getOwnerBookings(Long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    private static String bookingsQuery(String cursor) {
+        String query = "?state={state}&from={from}&size={size}";
+        return cursor != null ? query + "&cursor={cursor}" : query;
+    }
+
+    private static Map<String, Object> bookingsParameters(BookingState state, Integer from, Integer size,
+                                                          String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -7,11 +8,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.client.BookingClient;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.constants.HttpHeadersConstants;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
@@ -20,14 +24,14 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> createBooking(
+    public Mono<ResponseEntity<Object>> createBooking(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long bookerId,
             @Valid @RequestBody BookingRequestDto bookingRequestDto) {
         return bookingClient.createBooking(bookerId, bookingRequestDto);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> updateBookingStatus(
+    public Mono<ResponseEntity<Object>> updateBookingStatus(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
             @PathVariable Long bookingId,
             @RequestParam Boolean approved) {
@@ -35,27 +39,37 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBookingById(
+    public Mono<ResponseEntity<Object>> getBookingById(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
             @PathVariable Long bookingId) {
         return bookingClient.getBookingById(userId, bookingId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserBookings(
+    public Mono<ResponseEntity<Object>> getUserBookings(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long bookerId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return bookingClient.getUserBookings(bookerId, state, from, size);
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor) {
+        return bookingClient.getUserBookings(bookerId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getOwnerBookings(
+    public Mono<ResponseEntity<Object>> getOwnerBookings(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return bookingClient.getOwnerBookings(ownerId, state, from, size);
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor) {
+        return bookingClient.getOwnerBookings(ownerId, state, from, size, cursor);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportOwnerBookings(
+            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
+            @RequestParam(defaultValue = "ALL") BookingState state,
+            HttpServletResponse response) throws IOException {
+        bookingClient.exportOwnerBookings(ownerId, state, response);
     }
-}
\ No newline at end of file
+}
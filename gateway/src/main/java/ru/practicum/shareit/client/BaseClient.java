@@ -1,95 +1,251 @@
 package ru.practicum.shareit.client;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.*;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.constants.HttpHeadersConstants;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class BaseClient {
+    // Заголовки соединения между шлюзом и сервером, клиенту шлюза они не передаются
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            "keep-alive"
+    );
+    // Классы исключений пула встроены в reactor-netty как внутренние, поэтому переполнение очереди
+    // узнаётся по имени класса
+    private static final String PENDING_LIMIT_EXCEPTION = "PoolAcquirePendingLimitException";
+
     protected final RestTemplate rest;
+    private final WebClient web;
+    private final boolean passThrough;
+    // Одинаковые GET, пришедшие одновременно, ждут один вызов сервера и получают один ответ
+    private final Map<ReadKey, Mono<ResponseEntity<Object>>> inFlightReads = new ConcurrentHashMap<>();
+    private final Counter coalescedReads;
+
+    // RestTemplate нужен только клиентам с потоковой передачей тела (stream, upload)
+    public BaseClient(WebClient web, boolean passThrough) {
+        this(null, web, passThrough);
+    }
+
+    public BaseClient(RestTemplate rest, WebClient web) {
+        this(rest, web, false);
+    }
 
-    public BaseClient(RestTemplate rest) {
+    public BaseClient(RestTemplate rest, WebClient web, boolean passThrough) {
         this.rest = rest;
+        this.web = web;
+        this.passThrough = passThrough;
+        this.coalescedReads = Metrics.counter("shareit.gateway.requests.coalesced",
+                "client", getClass().getSimpleName());
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, Map<String, Object> parameters) {
+        return Mono.defer(() -> {
+            ReadKey key = new ReadKey(path, userId, parameters != null ? Map.copyOf(parameters) : Map.of());
+            Mono<ResponseEntity<Object>> read = sharedRead(key, path, userId, parameters);
+            Mono<ResponseEntity<Object>> inFlight = inFlightReads.putIfAbsent(key, read);
+            if (inFlight == null) {
+                return read;
+            }
+            coalescedReads.increment();
+            return inFlight;
+        });
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, Map<String, Object> parameters,
+                                                    T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, Long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, Long userId, Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, Long userId, Map<String, Object> parameters,
+                                                   T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> patch(String path) {
+    protected Mono<ResponseEntity<Object>> patch(String path) {
         return patch(path, null, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, Map<String, Object> parameters, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, Map<String, Object> parameters,
+                                                     T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, Map<String, Object> parameters) {
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId,
-                                                          Map<String, Object> parameters, T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    // Тело ответа сервера копируется клиенту по мере чтения и не накапливается в памяти шлюза
+    protected void stream(String path, Long userId, Map<String, Object> parameters, HttpServletResponse response)
+            throws IOException {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+        transfer(HttpMethod.GET, path, parameters, request -> request.getHeaders().addAll(headers), response);
+    }
+
+    // Тело запроса передаётся серверу по мере чтения, ответ копируется клиенту, как в stream
+    protected void upload(String path, MediaType contentType, InputStream body, HttpServletResponse response)
+            throws IOException {
+        HttpHeaders headers = defaultHeaders(null);
+        headers.setContentType(contentType);
+        transfer(HttpMethod.POST, path, Map.of(), request -> {
+            request.getHeaders().addAll(headers);
+            StreamUtils.copy(body, request.getBody());
+        }, response);
+    }
+
+    private void transfer(HttpMethod method, String path, Map<String, Object> parameters,
+                          RequestCallback requestCallback, HttpServletResponse response) throws IOException {
+        ResponseExtractor<Void> responseExtractor = serverResponse -> {
+            copyStatusAndContentType(serverResponse.getStatusCode(), serverResponse.getHeaders(), response);
+            StreamUtils.copy(serverResponse.getBody(), response.getOutputStream());
+            return null;
+        };
 
-        ResponseEntity<Object> serverResponse;
         try {
-            if (parameters != null && !parameters.isEmpty()) {
-                serverResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                serverResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
+            rest.execute(path, method, requestCallback, responseExtractor, parameters);
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            copyStatusAndContentType(e.getStatusCode(), e.getResponseHeaders(), response);
+            response.getOutputStream().write(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    private static void copyStatusAndContentType(HttpStatusCode status, HttpHeaders headers,
+                                                 HttpServletResponse response) {
+        response.setStatus(status.value());
+        if (headers != null && headers.getContentType() != null) {
+            response.setContentType(headers.getContentType().toString());
+        }
+    }
+
+    // Ключ снимается до раздачи ответа: следующий GET идёт на сервер, а не получает уже разосланный ответ.
+    // Общий вызов не отменяется, пока его ждёт хоть один клиент; отказались все - вызов отменяется
+    // и ключ тоже снимается. Снимается только свой ключ: на его месте может быть уже следующий вызов
+    private Mono<ResponseEntity<Object>> sharedRead(ReadKey key, String path, Long userId,
+                                                    Map<String, Object> parameters) {
+        AtomicReference<Mono<ResponseEntity<Object>>> self = new AtomicReference<>();
+        Runnable release = () -> inFlightReads.remove(key, self.get());
+        Mono<ResponseEntity<Object>> shared = makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null)
+                .doOnTerminate(release)
+                .doOnCancel(release)
+                .flux()
+                .publish()
+                .refCount()
+                .next();
+        self.set(shared);
+        return shared;
+    }
+
+    // Вызов не занимает поток на время ожидания сервера: ответ приходит в пул событий Netty,
+    // а контроллер отдаёт Mono, и Spring MVC дописывает ответ асинхронно
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId,
+                                                                Map<String, Object> parameters, T body) {
+        WebClient.RequestBodySpec request = web.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        WebClient.RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+
+        return requestWithBody.exchangeToMono(this::toGatewayResponse)
+                .onErrorResume(BaseClient::isPoolExhausted,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()));
+    }
+
+    // Ответ с ошибкой передаётся клиенту со статусом и телом сервера, как при HttpStatusCodeException
+    private Mono<ResponseEntity<Object>> toGatewayResponse(ClientResponse response) {
+        if (passThrough) {
+            return forward(response);
         }
-        return prepareGatewayResponse(serverResponse);
+        if (response.statusCode().isError()) {
+            return response.bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .map(body -> ResponseEntity.status(response.statusCode()).<Object>body(body));
+        }
+        return response.toEntity(Object.class).map(BaseClient::prepareGatewayResponse);
+    }
+
+    // Тело ответа сервера передаётся клиенту байтами, без разбора JSON и повторной сериализации
+    private static Mono<ResponseEntity<Object>> forward(ClientResponse response) {
+        return response.toEntity(byte[].class)
+                .map(serverResponse -> ResponseEntity.status(serverResponse.getStatusCode())
+                        .headers(endToEndHeaders(serverResponse.getHeaders()))
+                        .<Object>body(serverResponse.getBody()));
+    }
+
+    // Очередь ожидания соединения переполнена или ожидание истекло: сервер не успевает,
+    // и шлюз отказывает сразу, а не копит вызовы без ограничения
+    private static boolean isPoolExhausted(Throwable e) {
+        Throwable cause = e instanceof WebClientRequestException ? e.getCause() : e;
+        return cause instanceof TimeoutException
+                || cause != null && PENDING_LIMIT_EXCEPTION.equals(cause.getClass().getSimpleName());
+    }
+
+    private static HttpHeaders endToEndHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                    headers.addAll(name, values);
+                }
+            });
+        }
+        return headers;
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -115,4 +271,7 @@ public class BaseClient {
 
         return responseBuilder.build();
     }
+
+    private record ReadKey(String path, Long userId, Map<String, Object> parameters) {
+    }
 }
\ No newline at end of file
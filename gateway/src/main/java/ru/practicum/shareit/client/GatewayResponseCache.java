@@ -0,0 +1,72 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Кэш ответов сервера на частые чтения, общий для всех клиентов шлюза. Размер ограничен, вытеснение
+// W-TinyLFU; срок жизни ограничивает устаревание того, что шлюз сам не видит, например смену последнего
+// и следующего бронирования вещи со временем. Метрики: cache.* с тегом cache=gateway-responses
+@Component
+public class GatewayResponseCache {
+    private final Cache<Key, ResponseEntity<Object>> cache;
+    // Меняется при каждом сбросе: ответ, запрошенный до сброса, в кэш уже не попадёт
+    private final AtomicLong generation = new AtomicLong();
+
+    public GatewayResponseCache(@Value("${shareit-server.cache.max-size}") long maxSize,
+                                @Value("${shareit-server.cache.ttl}") Duration ttl,
+                                MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "gateway-responses");
+    }
+
+    // Кэшируются только успешные ответы: 404 на вещь не должен пережить её создание
+    public Mono<ResponseEntity<Object>> get(String path, Long userId, Map<String, Object> parameters,
+                                            Supplier<Mono<ResponseEntity<Object>>> loader) {
+        Key key = new Key(path, userId, parameters != null ? Map.copyOf(parameters) : Map.of());
+        ResponseEntity<Object> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        long requestedAt = generation.get();
+        return loader.get().doOnNext(response -> {
+            if (response.getStatusCode().is2xxSuccessful() && generation.get() == requestedAt) {
+                cache.put(key, response);
+            }
+        });
+    }
+
+    // Ответы по пути для всех пользователей и параметров
+    public void evict(String path) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.path().equals(path));
+    }
+
+    public void evictByPrefix(String pathPrefix) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.path().startsWith(pathPrefix));
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private record Key(String path, Long userId, Map<String, Object> parameters) {
+    }
+}
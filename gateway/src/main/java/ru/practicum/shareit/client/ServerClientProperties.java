@@ -0,0 +1,24 @@
+package ru.practicum.shareit.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Неблокирующий пул WebClient, через который идут все вызовы сервера, кроме потоковой выгрузки
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class ServerClientProperties {
+    // Все клиенты ходят на один сервер, поэтому лимит пула и есть лимит соединений с сервером
+    private int maxConnections = 100;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    // Сколько запрос ждёт свободное соединение из пула
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    // Сколько вызовов может ждать соединение, сверх этого шлюз сразу отвечает 503
+    private int maxPending = 1000;
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleEvictAfter = Duration.ofSeconds(30);
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Пулы соединений до сервера: неблокирующий для всех вызовов клиентов шлюза
+// и блокирующий только для потоковых выгрузки бронирований и импорта пользователей
+@Configuration
+public class ServerHttpClientConfig {
+    private static final String POOL_NAME = "shareit-server";
+    private static final String STREAM_POOL_NAME = "shareit-server-stream";
+
+    @Bean
+    LeaseTimingConnectionManager streamConnectionManager(StreamClientProperties properties, MeterRegistry registry) {
+        Timer leaseTimer = Timer.builder("shareit.gateway.pool.lease")
+                .description("Ожидание свободного соединения для выгрузки или импорта")
+                .tag("httpclient", STREAM_POOL_NAME)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        LeaseTimingConnectionManager connectionManager = new LeaseTimingConnectionManager(leaseTimer);
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(properties.getResponseTimeout()))
+                .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+                .build());
+        return connectionManager;
+    }
+
+    // Занятые, свободные и ожидающие соединения: httpcomponents.httpclient.pool.*
+    @Bean
+    MeterBinder streamConnectionPoolMetrics(LeaseTimingConnectionManager streamConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(streamConnectionManager, STREAM_POOL_NAME);
+    }
+
+    @Bean
+    CloseableHttpClient streamHttpClient(LeaseTimingConnectionManager streamConnectionManager,
+                                         StreamClientProperties properties) {
+        TimeValue keepAlive = TimeValue.of(properties.getKeepAlive());
+        return HttpClients.custom()
+                .setConnectionManager(streamConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getResponseTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getIdleEvictAfter()))
+                .build();
+    }
+
+    @Bean
+    ClientHttpRequestFactory streamRequestFactory(CloseableHttpClient streamHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(streamHttpClient);
+    }
+
+    // Пул неблокирующего клиента: соединение занимается только на время обмена, поток на ожидание
+    // ответа не выделяется. Метрики пула: reactor.netty.connection.provider.*; ожидание свободного
+    // соединения - reactor.netty.connection.provider.pending.connections.time, замеры только для вызовов,
+    // которым пришлось встать в очередь
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider serverConnectionProvider(ServerClientProperties properties) {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getMaxPending())
+                .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+                .maxIdleTime(properties.getKeepAlive())
+                .evictInBackground(properties.getIdleEvictAfter())
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    ClientHttpConnector serverHttpConnector(ConnectionProvider serverConnectionProvider,
+                                            ServerClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(serverConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout());
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
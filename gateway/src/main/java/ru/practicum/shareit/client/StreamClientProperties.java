@@ -0,0 +1,27 @@
+package ru.practicum.shareit.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Блокирующий пул только для потоковой передачи тела: выгрузки бронирований (GET /bookings/owner/export)
+// и импорта пользователей в NDJSON (POST /users/import). Такой вызов держит соединение долго, поэтому пул
+// отдельный и не отнимает соединения у остальных вызовов
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit-server.stream")
+public class StreamClientProperties {
+    // Сколько выгрузок и импортов может идти одновременно
+    private int maxTotal = 20;
+    private int maxPerRoute = 20;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    // Наибольшая пауза между порциями ответа, а не время всей выгрузки
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    // Сколько вызов ждёт свободное соединение из пула
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleEvictAfter = Duration.ofSeconds(30);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+}
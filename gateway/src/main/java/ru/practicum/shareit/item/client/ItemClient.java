@@ -1,60 +1,111 @@
 package ru.practicum.shareit.item.client;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private static final String REQUESTS_FEED_PATH = "/requests/all";
 
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    private final GatewayResponseCache responseCache;
+
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl,
+                      @Value("${shareit-server.pass-through}") boolean passThrough,
+                      WebClient.Builder webClientBuilder,
+                      ClientHttpConnector serverHttpConnector,
+                      GatewayResponseCache responseCache) {
         super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .clientConnector(serverHttpConnector)
+                        .build(),
+                passThrough
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> createItem(Long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public Mono<ResponseEntity<Object>> createItem(Long userId, ItemDto itemDto) {
+        Mono<ResponseEntity<Object>> response = post("", userId, itemDto);
+        // Вещь по запросу попадает в ленту запросов
+        if (itemDto.getRequestId() != null) {
+            return response.doOnTerminate(() -> responseCache.evict(REQUESTS_FEED_PATH));
+        }
+        return response;
     }
 
-    public ResponseEntity<Object> updateItem(Long userId, Long itemId, ItemDto itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> updateItem(Long userId, Long itemId, ItemDto itemDto) {
+        return patch("/" + itemId, userId, itemDto)
+                .doOnTerminate(() -> evictItem(itemId));
     }
 
-    public ResponseEntity<Object> getItem(Long userId, Long itemId) {
-        return get("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> getItem(Long userId, Long itemId) {
+        // Владелец видит бронирования вещи, поэтому ответ кэшируется отдельно для каждого пользователя
+        return responseCache.get(API_PREFIX + "/" + itemId, userId, null, () -> get("/" + itemId, userId));
     }
 
-    public ResponseEntity<Object> getUserItems(Long userId) {
+    public Mono<ResponseEntity<Object>> getUserItems(Long userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> searchItems(String text, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> searchItems(String text, Integer from, Integer size, Long cursor,
+                                              LocalDateTime start, LocalDateTime end) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", text,
                 "from", from,
                 "size", size
+        ));
+        String path = "/search?text={text}&from={from}&size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        if (start != null) {
+            parameters.put("start", start);
+            path += "&start={start}";
+        }
+        if (end != null) {
+            parameters.put("end", end);
+            path += "&end={end}";
+        }
+        return get(path, null, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getItemAvailability(Long userId, Long itemId, LocalDateTime from,
+                                                            LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
         );
-        return get("/search?text={text}&from={from}&size={size}", null, parameters);
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> deleteItem(Long userId, Long itemId) {
+        return delete("/" + itemId, userId)
+                .doOnTerminate(() -> evictItem(itemId));
     }
 
-    public ResponseEntity<Object> deleteItem(Long userId, Long itemId) {
-        return delete("/" + itemId, userId);
+    public Mono<ResponseEntity<Object>> addComment(Long userId, Long itemId, CommentDto commentDto) {
+        return post("/" + itemId + "/comment", userId, commentDto)
+                .doOnTerminate(() -> responseCache.evict(API_PREFIX + "/" + itemId));
     }
 
-    public ResponseEntity<Object> addComment(Long userId, Long itemId, CommentDto commentDto) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    // Вещь видна и в ленте запросов, если создана по запросу
+    private void evictItem(Long itemId) {
+        responseCache.evict(API_PREFIX + "/" + itemId);
+        responseCache.evict(REQUESTS_FEED_PATH);
     }
 }
\ No newline at end of file
@@ -4,14 +4,18 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.constants.HttpHeadersConstants;
 import ru.practicum.shareit.item.client.ItemClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
@@ -20,14 +24,14 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> createItem(
+    public Mono<ResponseEntity<Object>> createItem(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
             @Valid @RequestBody ItemDto itemDto) {
         return itemClient.createItem(ownerId, itemDto);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(
+    public Mono<ResponseEntity<Object>> addComment(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
             @PathVariable Long itemId,
             @Valid @RequestBody CommentDto commentDto) {
@@ -35,7 +39,7 @@ public class ItemController {
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(
+    public Mono<ResponseEntity<Object>> updateItem(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
             @PathVariable Long itemId,
             @Valid @RequestBody ItemDto itemDto) {
@@ -43,28 +47,40 @@ public class ItemController {
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItem(
+    public Mono<ResponseEntity<Object>> getItem(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
             @PathVariable Long itemId) {
         return itemClient.getItem(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserItems(
+    public Mono<ResponseEntity<Object>> getUserItems(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId) {
         return itemClient.getUserItems(ownerId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(
+    public Mono<ResponseEntity<Object>> searchItems(
             @RequestParam String text,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return itemClient.searchItems(text, from, size);
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) @Positive Long cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return itemClient.searchItems(text, from, size, cursor, start, end);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getItemAvailability(
+            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemClient.getItemAvailability(userId, itemId, from, to);
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Object> deleteItem(
+    public Mono<ResponseEntity<Object>> deleteItem(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
             @PathVariable Long itemId) {
         return itemClient.deleteItem(ownerId, itemId);
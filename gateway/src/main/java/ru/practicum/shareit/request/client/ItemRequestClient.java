@@ -1,46 +1,68 @@
 package ru.practicum.shareit.request.client;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    private final GatewayResponseCache responseCache;
+
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl,
+                             @Value("${shareit-server.pass-through}") boolean passThrough,
+                             WebClient.Builder webClientBuilder,
+                             ClientHttpConnector serverHttpConnector,
+                             GatewayResponseCache responseCache) {
         super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .clientConnector(serverHttpConnector)
+                        .build(),
+                passThrough
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> createRequest(Long userId, ItemRequestDto itemRequestDto) {
-        return post("", userId, itemRequestDto);
+    public Mono<ResponseEntity<Object>> createRequest(Long userId, ItemRequestDto itemRequestDto) {
+        return post("", userId, itemRequestDto)
+                .doOnTerminate(() -> responseCache.evict(API_PREFIX + "/all"));
     }
 
-    public ResponseEntity<Object> getUserRequests(Long userId) {
-        return get("", userId);
+    public Mono<ResponseEntity<Object>> getUserRequests(Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "from", from,
+                "size", size
+        ));
+        String path = "?from={from}&size={size}";
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            path += "&cursor={cursor}";
+        }
+        return get(path, userId, parameters);
     }
 
-    public ResponseEntity<Object> getAllRequests(Long userId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAllRequests(Long userId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        return responseCache.get(API_PREFIX + "/all", userId, parameters,
+                () -> get("/all?from={from}&size={size}", userId, parameters));
     }
 
-    public ResponseEntity<Object> getRequestById(Long userId, Long requestId) {
+    public Mono<ResponseEntity<Object>> getRequestById(Long userId, Long requestId) {
         return get("/" + requestId, userId);
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.constants.HttpHeadersConstants;
 import ru.practicum.shareit.request.client.ItemRequestClient;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -19,20 +20,23 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> createRequest(
+    public Mono<ResponseEntity<Object>> createRequest(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
             @Valid @RequestBody ItemRequestDto itemRequestDto) {
         return itemRequestClient.createRequest(userId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUserRequests(
-            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId) {
-        return itemRequestClient.getUserRequests(userId);
+    public Mono<ResponseEntity<Object>> getUserRequests(
+            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String cursor) {
+        return itemRequestClient.getUserRequests(userId, from, size, cursor);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAllRequests(
+    public Mono<ResponseEntity<Object>> getAllRequests(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
             @RequestParam(defaultValue = "10") @Positive Integer size) {
@@ -40,7 +44,7 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getRequestById(
+    public Mono<ResponseEntity<Object>> getRequestById(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
             @PathVariable Long requestId) {
         return itemRequestClient.getRequestById(userId, requestId);
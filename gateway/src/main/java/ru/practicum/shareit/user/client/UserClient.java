@@ -1,44 +1,85 @@
 package ru.practicum.shareit.user.client;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayResponseCache;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
+    private static final String ITEMS_PATH_PREFIX = "/items/";
+
+    private final GatewayResponseCache responseCache;
 
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl,
+                      @Value("${shareit-server.pass-through}") boolean passThrough,
+                      RestTemplateBuilder builder,
+                      ClientHttpRequestFactory streamRequestFactory,
+                      WebClient.Builder webClientBuilder,
+                      ClientHttpConnector serverHttpConnector,
+                      GatewayResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
-                        .build()
+                        .requestFactory(() -> streamRequestFactory)
+                        .build(),
+                webClientBuilder
+                        .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .clientConnector(serverHttpConnector)
+                        .build(),
+                passThrough
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> createUser(UserDto userDto) {
+    public Mono<ResponseEntity<Object>> createUser(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> updateUser(Long userId, UserDto userDto) {
-        return patch("/" + userId, userDto);
+    public Mono<ResponseEntity<Object>> importUsers(List<UserDto> users) {
+        return post("/import", users);
+    }
+
+    // Строки NDJSON уходят на сервер по мере чтения, шлюз их не разбирает и не накапливает
+    public void importUsersNdjson(InputStream body, HttpServletResponse response) throws IOException {
+        upload("/import", MediaType.APPLICATION_NDJSON, body, response);
+    }
+
+    public Mono<ResponseEntity<Object>> updateUser(Long userId, UserDto userDto) {
+        // Имя пользователя показывается в комментариях к вещам
+        return patch("/" + userId, userDto)
+                .doOnTerminate(() -> {
+                    responseCache.evict(API_PREFIX + "/" + userId);
+                    responseCache.evictByPrefix(ITEMS_PATH_PREFIX);
+                });
     }
 
-    public ResponseEntity<Object> getUser(Long userId) {
-        return get("/" + userId);
+    public Mono<ResponseEntity<Object>> getUser(Long userId) {
+        return responseCache.get(API_PREFIX + "/" + userId, null, null, () -> get("/" + userId));
     }
 
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> deleteUser(Long userId) {
-        return delete("/" + userId);
+    public Mono<ResponseEntity<Object>> deleteUser(Long userId) {
+        // Вместе с пользователем удаляются его вещи, запросы, бронирования и комментарии
+        return delete("/" + userId)
+                .doOnTerminate(responseCache::evictAll);
     }
 }
\ No newline at end of file
@@ -1,13 +1,20 @@
 package ru.practicum.shareit.user.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.user.client.UserClient;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
@@ -16,29 +23,42 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> createUser(@Valid @RequestBody UserDto userDto) {
+    public Mono<ResponseEntity<Object>> createUser(@Valid @RequestBody UserDto userDto) {
         return userClient.createUser(userDto);
     }
 
+    // Строки проверяет сервер и возвращает результат по каждой, шлюз только передаёт их массивом
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Object>> importUsers(@RequestBody List<UserDto> users) {
+        return userClient.importUsers(users);
+    }
+
+    // NDJSON: по одному пользователю в строке. Тело передаётся серверу потоком, как при выгрузке,
+    // и не накапливается в памяти шлюза; строки разбирает и проверяет сервер
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsersNdjson(InputStream body, HttpServletResponse response) throws IOException {
+        userClient.importUsersNdjson(body, response);
+    }
+
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> updateUser(
+    public Mono<ResponseEntity<Object>> updateUser(
             @PathVariable Long userId,
             @Valid @RequestBody UserDto userDto) {
         return userClient.updateUser(userId, userDto);
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUser(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> getUser(@PathVariable Long userId) {
         return userClient.getUser(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public Mono<ResponseEntity<Object>> getAllUsers() {
         return userClient.getAllUsers();
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> deleteUser(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> deleteUser(@PathVariable Long userId) {
         return userClient.deleteUser(userId);
     }
 }
\ No newline at end of file
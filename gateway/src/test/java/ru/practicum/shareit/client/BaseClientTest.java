@@ -0,0 +1,234 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Вызовы через BaseClient против заглушки сервера. Для проверки объединения одинаковых GET ответ
+// задерживается, пока все вызовы не встанут в ожидание
+class BaseClientTest {
+    private static final String PATH = "/items/1";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private StubServer server;
+    private TestClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Metrics.addRegistry(registry);
+        server = new StubServer();
+        server.on(PATH, exchange -> {
+            await(release);
+            StubServer.respond(exchange, 200, "{\"id\":1}");
+        });
+        client = new TestClient(new RestTemplateBuilder()
+                .rootUri(server.url())
+                .build(), WebClient.builder()
+                .baseUrl(server.url())
+                .clientConnector(new ReactorClientHttpConnector())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.close();
+        Metrics.removeRegistry(registry);
+    }
+
+    // Тестирование одновременных одинаковых GET: до сервера доходит один вызов, ответ получают все
+    @Test
+    void concurrentIdenticalReadsShareOneCallTest() throws Exception {
+        List<CompletableFuture<ResponseEntity<Object>>> reads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            reads.add(client.read(PATH, 1L).toFuture());
+        }
+        server.awaitCount("GET", PATH, 1);
+        release.countDown();
+
+        for (CompletableFuture<ResponseEntity<Object>> read : reads) {
+            ResponseEntity<Object> response = read.get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.getStatusCode().value());
+            assertArrayEquals("{\"id\":1}".getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        }
+        assertEquals(1, server.count("GET", PATH));
+        assertEquals(4, coalesced());
+
+        // Завершённый вызов снят, следующий GET идёт на сервер
+        client.read(PATH, 1L).block();
+        assertEquals(2, server.count("GET", PATH));
+        assertEquals(4, coalesced());
+    }
+
+    // Тестирование GET разных пользователей: ответы зависят от пользователя и не объединяются
+    @Test
+    void readsOfDifferentUsersAreNotMergedTest() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> first = client.read(PATH, 1L).toFuture();
+        CompletableFuture<ResponseEntity<Object>> second = client.read(PATH, 2L).toFuture();
+        CompletableFuture<ResponseEntity<Object>> anonymous = client.read(PATH, null).toFuture();
+        server.awaitCount("GET", PATH, 3);
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        anonymous.get(5, TimeUnit.SECONDS);
+        assertEquals(3, server.count("GET", PATH));
+        assertTrue(server.userIds(PATH).containsAll(List.of("1", "2")));
+        assertEquals(0, coalesced());
+    }
+
+    // Тестирование ответа с ошибкой: его получают все ожидающие, и вызов снимается
+    @Test
+    void errorResponseRemovesCallTest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server.on("/items/2", exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                await(release);
+                StubServer.respond(exchange, 500, "{\"error\":\"сбой\"}");
+            } else {
+                StubServer.respond(exchange, 200, "{\"id\":2}");
+            }
+        });
+
+        CompletableFuture<ResponseEntity<Object>> first = client.read("/items/2", 1L).toFuture();
+        CompletableFuture<ResponseEntity<Object>> second = client.read("/items/2", 1L).toFuture();
+        server.awaitCount("GET", "/items/2", 1);
+        release.countDown();
+        assertEquals(500, first.get(5, TimeUnit.SECONDS).getStatusCode().value());
+        assertEquals(500, second.get(5, TimeUnit.SECONDS).getStatusCode().value());
+        assertEquals(1, coalesced());
+
+        assertEquals(200, client.read("/items/2", 1L).block().getStatusCode().value());
+        assertEquals(2, server.count("GET", "/items/2"));
+        assertEquals(1, coalesced());
+    }
+
+    // Тестирование обрыва соединения: ошибку получают все ожидающие, и вызов снимается
+    @Test
+    void connectionErrorRemovesCallTest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server.on("/items/3", exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                await(release);
+                exchange.close();
+            } else {
+                StubServer.respond(exchange, 200, "{\"id\":3}");
+            }
+        });
+
+        Mono<ResponseEntity<Object>> first = client.read("/items/3", 1L).cache();
+        Mono<ResponseEntity<Object>> second = client.read("/items/3", 1L).cache();
+        first.subscribe(response -> { }, e -> { });
+        second.subscribe(response -> { }, e -> { });
+        server.awaitCount("GET", "/items/3", 1);
+        release.countDown();
+        assertThrows(RuntimeException.class, first::block);
+        assertThrows(RuntimeException.class, second::block);
+        assertEquals(1, coalesced());
+
+        assertEquals(200, client.read("/items/3", 1L).block().getStatusCode().value());
+        assertEquals(1, coalesced());
+    }
+
+    // Тестирование отмены: отказ одного ожидающего не отменяет общий вызов, отказ всех снимает его
+    @Test
+    void cancelledReadsRemoveCallTest() throws Exception {
+        CompletableFuture<ResponseEntity<Object>> kept = client.read(PATH, 1L).toFuture();
+        Disposable cancelled = client.read(PATH, 1L).subscribe();
+        server.awaitCount("GET", PATH, 1);
+        cancelled.dispose();
+        release.countDown();
+        assertEquals(200, kept.get(5, TimeUnit.SECONDS).getStatusCode().value());
+        assertEquals(1, server.count("GET", PATH));
+
+        CountDownLatch hold = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        server.on("/items/4", exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                await(hold);
+            }
+            StubServer.respond(exchange, 200, "{\"id\":4}");
+        });
+
+        Disposable alone = client.read("/items/4", 1L).subscribe();
+        server.awaitCount("GET", "/items/4", 1);
+        alone.dispose();
+        hold.countDown();
+        assertEquals(200, client.read("/items/4", 1L).block().getStatusCode().value());
+        assertEquals(2, server.count("GET", "/items/4"));
+        assertEquals(1, coalesced());
+    }
+
+    // Тестирование потоковой передачи тела: сервер получает строки как есть, клиент - ответ сервера
+    @Test
+    void uploadForwardsBodyAndResponseTest() throws Exception {
+        List<String> received = new ArrayList<>();
+        server.on("/import", exchange -> {
+            received.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            StubServer.respond(exchange, 409, "[{\"status\":\"CONFLICT\"}]");
+        });
+        String rows = "{\"name\":\"a\",\"email\":\"a@example.com\"}\n{\"name\":\"b\",\"email\":\"b@example.com\"}\n";
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        client.upload("/import", MediaType.APPLICATION_NDJSON,
+                new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)), response);
+
+        assertEquals(List.of(MediaType.APPLICATION_NDJSON_VALUE, rows), received);
+        assertEquals(409, response.getStatus());
+        assertEquals("[{\"status\":\"CONFLICT\"}]", response.getContentAsString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double coalesced() {
+        return registry.get("shareit.gateway.requests.coalesced")
+                .tag("client", TestClient.class.getSimpleName())
+                .counter()
+                .count();
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest, WebClient web) {
+            super(rest, web, true);
+        }
+
+        Mono<ResponseEntity<Object>> read(String path, Long userId) {
+            return get(path, userId);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.shareit.booking.client.BookingClient;
+import ru.practicum.shareit.item.client.ItemClient;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.client.ItemRequestClient;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.client.UserClient;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Клиенты шлюза против заглушки сервера: каждая запись сбрасывает закэшированные чтения, которые она меняет
+class GatewayCacheInvalidationTest {
+
+    private StubServer server;
+    private ItemClient itemClient;
+    private UserClient userClient;
+    private ItemRequestClient requestClient;
+    private BookingClient bookingClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubServer();
+        GatewayResponseCache cache = new GatewayResponseCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector();
+        itemClient = new ItemClient(server.url(), true, WebClient.builder(), connector, cache);
+        userClient = new UserClient(server.url(), true, new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), WebClient.builder(), connector, cache);
+        requestClient = new ItemRequestClient(server.url(), true, WebClient.builder(), connector, cache);
+        bookingClient = new BookingClient(server.url(), true, new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), WebClient.builder(), connector, cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    // Тестирование кэша чтений: повторный запрос до сервера не доходит
+    @Test
+    void readsAreCachedTest() {
+        itemClient.getItem(1L, 10L).block();
+        itemClient.getItem(1L, 10L).block();
+        userClient.getUser(1L).block();
+        userClient.getUser(1L).block();
+        requestClient.getAllRequests(1L, 0, 10).block();
+        requestClient.getAllRequests(1L, 0, 10).block();
+
+        assertEquals(1, server.count("GET", "/items/10"));
+        assertEquals(1, server.count("GET", "/users/1"));
+        assertEquals(1, server.count("GET", "/requests/all"));
+    }
+
+    // Тестирование изменения вещи: сбрасываются её карточка и лента запросов
+    @Test
+    void updateItemEvictsItemAndFeedTest() {
+        readItemAndFeed();
+        itemClient.updateItem(1L, 10L, new ItemDto(null, "Дрель", null, null, null)).block();
+        readItemAndFeed();
+
+        assertEquals(2, server.count("GET", "/items/10"));
+        assertEquals(2, server.count("GET", "/requests/all"));
+    }
+
+    // Тестирование удаления вещи: сбрасываются её карточка и лента запросов
+    @Test
+    void deleteItemEvictsItemAndFeedTest() {
+        readItemAndFeed();
+        itemClient.deleteItem(1L, 10L).block();
+        readItemAndFeed();
+
+        assertEquals(2, server.count("GET", "/items/10"));
+        assertEquals(2, server.count("GET", "/requests/all"));
+    }
+
+    // Тестирование комментария: сбрасывается карточка вещи у всех пользователей
+    @Test
+    void addCommentEvictsItemTest() {
+        itemClient.getItem(1L, 10L).block();
+        itemClient.getItem(2L, 10L).block();
+        itemClient.addComment(2L, 10L, new CommentDto(null, "отлично", null, null)).block();
+        itemClient.getItem(1L, 10L).block();
+        itemClient.getItem(2L, 10L).block();
+
+        assertEquals(4, server.count("GET", "/items/10"));
+    }
+
+    // Тестирование создания вещи: лента запросов сбрасывается, только если вещь создана по запросу
+    @Test
+    void createItemEvictsFeedOnlyForRequestTest() {
+        requestClient.getAllRequests(1L, 0, 10).block();
+        itemClient.createItem(1L, new ItemDto(null, "Дрель", "ударная", true, null)).block();
+        requestClient.getAllRequests(1L, 0, 10).block();
+        assertEquals(1, server.count("GET", "/requests/all"));
+
+        itemClient.createItem(1L, new ItemDto(null, "Дрель", "ударная", true, 5L)).block();
+        requestClient.getAllRequests(1L, 0, 10).block();
+        assertEquals(2, server.count("GET", "/requests/all"));
+    }
+
+    // Тестирование создания запроса: сбрасывается лента запросов
+    @Test
+    void createRequestEvictsFeedTest() {
+        requestClient.getAllRequests(1L, 0, 10).block();
+        requestClient.getAllRequests(2L, 10, 10).block();
+        requestClient.createRequest(3L, new ItemRequestDto(null, "Нужна дрель", null, null)).block();
+        requestClient.getAllRequests(1L, 0, 10).block();
+        requestClient.getAllRequests(2L, 10, 10).block();
+
+        assertEquals(4, server.count("GET", "/requests/all"));
+    }
+
+    // Тестирование подтверждения бронирования: сбрасываются карточки всех вещей, пользователи остаются
+    @Test
+    void approveBookingEvictsAllItemsTest() {
+        itemClient.getItem(1L, 10L).block();
+        itemClient.getItem(2L, 10L).block();
+        itemClient.getItem(1L, 11L).block();
+        userClient.getUser(1L).block();
+
+        bookingClient.updateBookingStatus(1L, 100L, true).block();
+
+        itemClient.getItem(1L, 10L).block();
+        itemClient.getItem(2L, 10L).block();
+        itemClient.getItem(1L, 11L).block();
+        userClient.getUser(1L).block();
+        assertEquals(4, server.count("GET", "/items/10"));
+        assertEquals(2, server.count("GET", "/items/11"));
+        assertEquals(1, server.count("GET", "/users/1"));
+    }
+
+    // Тестирование изменения пользователя: сбрасываются он сам и карточки вещей с его комментариями
+    @Test
+    void updateUserEvictsUserAndItemsTest() {
+        userClient.getUser(1L).block();
+        userClient.getUser(2L).block();
+        itemClient.getItem(1L, 10L).block();
+
+        userClient.updateUser(1L, new UserDto(null, "Новое имя", null)).block();
+
+        userClient.getUser(1L).block();
+        userClient.getUser(2L).block();
+        itemClient.getItem(1L, 10L).block();
+        assertEquals(2, server.count("GET", "/users/1"));
+        assertEquals(1, server.count("GET", "/users/2"));
+        assertEquals(2, server.count("GET", "/items/10"));
+    }
+
+    // Тестирование удаления пользователя: сбрасывается весь кэш
+    @Test
+    void deleteUserEvictsAllTest() {
+        userClient.getUser(2L).block();
+        readItemAndFeed();
+
+        userClient.deleteUser(1L).block();
+
+        userClient.getUser(2L).block();
+        readItemAndFeed();
+        assertEquals(2, server.count("GET", "/users/2"));
+        assertEquals(2, server.count("GET", "/items/10"));
+        assertEquals(2, server.count("GET", "/requests/all"));
+    }
+
+    private void readItemAndFeed() {
+        itemClient.getItem(1L, 10L).block();
+        requestClient.getAllRequests(1L, 0, 10).block();
+    }
+}
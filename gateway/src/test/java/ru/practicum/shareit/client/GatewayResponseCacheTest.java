@@ -0,0 +1,117 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GatewayResponseCacheTest {
+
+    private GatewayResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new GatewayResponseCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    // Тестирование повторного чтения: успешный ответ берётся из кэша, ошибка - нет
+    @Test
+    void cachesOnlySuccessfulResponsesTest() {
+        assertEquals("ответ", read("/items/1", 1L, null).getBody());
+        assertEquals("ответ", read("/items/1", 1L, null).getBody());
+        assertEquals(1, loads.get());
+
+        // Ответы разных пользователей и параметров кэшируются отдельно
+        read("/items/1", 2L, null);
+        read("/requests/all", 1L, Map.of("from", 0));
+        read("/requests/all", 1L, Map.of("from", 10));
+        assertEquals(4, loads.get());
+
+        for (int i = 0; i < 2; i++) {
+            cache.get("/items/2", 1L, null, () -> {
+                loads.incrementAndGet();
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+            }).block();
+        }
+        assertEquals(6, loads.get());
+    }
+
+    // Тестирование гонки: ответ, запрошенный до сброса и пришедший после него, в кэш не попадает
+    @Test
+    void responseRequestedBeforeEvictIsNotCachedTest() throws Exception {
+        Sinks.One<ResponseEntity<Object>> server = Sinks.one();
+        CompletableFuture<ResponseEntity<Object>> stale = cache.get("/items/1", 1L, null, server::asMono)
+                .toFuture();
+
+        cache.evict("/items/1");
+        server.tryEmitValue(ResponseEntity.ok("старый"));
+        assertEquals("старый", stale.get().getBody());
+
+        assertEquals("ответ", read("/items/1", 1L, null).getBody());
+        assertEquals(1, loads.get());
+    }
+
+    // Тестирование сброса по пути: уходят ответы всех пользователей и параметров, соседние пути остаются
+    @Test
+    void evictRemovesPathForAllUsersTest() {
+        read("/requests/all", 1L, Map.of("from", 0));
+        read("/requests/all", 2L, Map.of("from", 10));
+        read("/requests/allx", 1L, null);
+        loads.set(0);
+
+        cache.evict("/requests/all");
+        read("/requests/all", 1L, Map.of("from", 0));
+        read("/requests/all", 2L, Map.of("from", 10));
+        read("/requests/allx", 1L, null);
+        assertEquals(2, loads.get());
+    }
+
+    // Тестирование сброса по префиксу: уходят все карточки вещей, пользователи остаются
+    @Test
+    void evictByPrefixTest() {
+        read("/items/1", 1L, null);
+        read("/items/1", 2L, null);
+        read("/items/2", 1L, null);
+        read("/users/1", null, null);
+        loads.set(0);
+
+        cache.evictByPrefix("/items/");
+        read("/items/1", 1L, null);
+        read("/items/1", 2L, null);
+        read("/items/2", 1L, null);
+        read("/users/1", null, null);
+        assertEquals(3, loads.get());
+    }
+
+    // Тестирование полного сброса
+    @Test
+    void evictAllTest() {
+        read("/items/1", 1L, null);
+        read("/users/1", null, null);
+        loads.set(0);
+
+        cache.evictAll();
+        read("/items/1", 1L, null);
+        read("/users/1", null, null);
+        assertEquals(2, loads.get());
+    }
+
+    private ResponseEntity<Object> read(String path, Long userId, Map<String, Object> parameters) {
+        return cache.get(path, userId, parameters, () -> {
+            loads.incrementAndGet();
+            return Mono.just(ResponseEntity.ok("ответ"));
+        }).block();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Заглушка сервера ShareIt на встроенном HttpServer JDK: по умолчанию отвечает 200 с JSON,
+// считает запросы по методу и пути и запоминает заголовок пользователя
+class StubServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> userIds = new ConcurrentHashMap<>();
+    private final Map<String, HttpHandler> handlers = new ConcurrentHashMap<>();
+
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    // Свой ответ на запросы к пути
+    void on(String path, HttpHandler handler) {
+        handlers.put(path, handler);
+    }
+
+    int count(String method, String path) {
+        AtomicInteger count = requests.get(method + " " + path);
+        return count != null ? count.get() : 0;
+    }
+
+    List<String> userIds(String path) {
+        return List.copyOf(userIds.getOrDefault(path, List.of()));
+    }
+
+    // Ждёт, пока к пути придёт заданное число запросов
+    void awaitCount(String method, String path, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (count(method, path) < expected) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("К " + path + " пришло " + count(method, path) + " запросов вместо " + expected);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String userId = exchange.getRequestHeaders().getFirst("X-Sharer-User-Id");
+        if (userId != null) {
+            userIds.computeIfAbsent(path, key -> new CopyOnWriteArrayList<>()).add(userId);
+        }
+        requests.computeIfAbsent(exchange.getRequestMethod() + " " + path, key -> new AtomicInteger())
+                .incrementAndGet();
+
+        HttpHandler handler = handlers.get(path);
+        if (handler != null) {
+            handler.handle(exchange);
+        } else {
+            respond(exchange, 200, "{\"path\":\"" + path + "\"}");
+        }
+    }
+
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
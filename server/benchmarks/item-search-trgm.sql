@@ -0,0 +1,100 @@
+-- Сравнение поиска вещей: текущий UPPER LIKE против LOWER LIKE с GIN-индексами pg_trgm.
+-- Запуск на отдельной базе: psql -f item-search-trgm.sql
+-- Данные создаются в схеме shareit_bench и удаляются в конце.
+
+\timing on
+
+DROP SCHEMA IF EXISTS shareit_bench CASCADE;
+CREATE SCHEMA shareit_bench;
+SET search_path = shareit_bench, public;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE items (
+  id             BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  name           VARCHAR(255) NOT NULL,
+  description    VARCHAR(1000) NOT NULL,
+  is_available   BOOLEAN NOT NULL,
+  owner_id       BIGINT NOT NULL,
+  request_id     BIGINT,
+  CONSTRAINT pk_item PRIMARY KEY (id)
+);
+
+-- 1 000 000 вещей из словаря; "дрель" встречается часто, "рубанок-N" — редко
+INSERT INTO items (name, description, is_available, owner_id)
+SELECT tool[1 + (g * 7) % 20] || ' ' || adjective[1 + (g * 13) % 20],
+       'описание ' || state[1 + g % 4] || ' ' ||
+       CASE WHEN g % 50000 = 0 THEN 'рубанок-' || g ELSE tool[1 + (g * 7) % 20] END,
+       g % 10 <> 3,
+       1 + g % 10000
+FROM generate_series(1, 1000000) AS g,
+     (SELECT ARRAY['дрель', 'пила', 'лестница', 'палатка', 'велосипед', 'самокат', 'шуруповёрт',
+                   'перфоратор', 'болгарка', 'стремянка', 'газонокосилка', 'триммер', 'мангал',
+                   'котелок', 'спальник', 'рюкзак', 'байдарка', 'удочка', 'лодка', 'насос'] AS tool,
+             ARRAY['аккумуляторная', 'ударная', 'садовая', 'туристическая', 'складная', 'детский',
+                   'электрическая', 'ручная', 'алюминиевая', 'профессиональная', 'бытовая',
+                   'компактная', 'мощная', 'лёгкая', 'прочная', 'новая', 'старая', 'большая',
+                   'маленькая', 'удобная'] AS adjective,
+             ARRAY['хорошее', 'отличное', 'рабочее', 'б/у'] AS state) AS dictionary;
+
+SELECT count(*) AS items, count(*) FILTER (WHERE name LIKE 'дрель%') AS drills FROM items;
+
+CREATE INDEX idx_items_name_trgm ON items USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX idx_items_description_trgm ON items USING GIN (lower(description) gin_trgm_ops);
+ANALYZE items;
+
+-- Частая подстрока, первая страница: оба варианта дочитывают pk-индекс до 10 совпадений
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items i
+WHERE (UPPER(i.name) LIKE UPPER(CONCAT('%', 'дрел', '%')) OR UPPER(i.description) LIKE UPPER(CONCAT('%', 'дрел', '%')))
+  AND i.is_available = true
+ORDER BY i.id LIMIT 10;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items i
+WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', 'дрел', '%')) OR LOWER(i.description) LIKE LOWER(CONCAT('%', 'дрел', '%')))
+  AND i.is_available = true
+ORDER BY i.id LIMIT 10;
+
+-- Редкая подстрока: текущий запрос просматривает всю таблицу, триграммный — только кандидатов из GIN
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items i
+WHERE (UPPER(i.name) LIKE UPPER(CONCAT('%', 'рубанок-5', '%')) OR UPPER(i.description) LIKE UPPER(CONCAT('%', 'рубанок-5', '%')))
+  AND i.is_available = true
+ORDER BY i.id LIMIT 10;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items i
+WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', 'рубанок-5', '%')) OR LOWER(i.description) LIKE LOWER(CONCAT('%', 'рубанок-5', '%')))
+  AND i.is_available = true
+ORDER BY i.id LIMIT 10;
+
+-- Подстрока без совпадений: худший случай для текущего запроса
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items i
+WHERE (UPPER(i.name) LIKE UPPER(CONCAT('%', 'экскаватор', '%')) OR UPPER(i.description) LIKE UPPER(CONCAT('%', 'экскаватор', '%')))
+  AND i.is_available = true
+ORDER BY i.id LIMIT 10;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT i.* FROM items i
+WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', 'экскаватор', '%')) OR LOWER(i.description) LIKE LOWER(CONCAT('%', 'экскаватор', '%')))
+  AND i.is_available = true
+ORDER BY i.id LIMIT 10;
+
+-- Проверка совпадения результатов двух запросов (ожидается 0)
+SELECT count(*) AS mismatches FROM (
+  (SELECT id FROM items
+   WHERE UPPER(name) LIKE UPPER('%дрел%') OR UPPER(description) LIKE UPPER('%дрел%')
+   EXCEPT
+   SELECT id FROM items
+   WHERE LOWER(name) LIKE LOWER('%дрел%') OR LOWER(description) LIKE LOWER('%дрел%'))
+  UNION ALL
+  (SELECT id FROM items
+   WHERE LOWER(name) LIKE LOWER('%дрел%') OR LOWER(description) LIKE LOWER('%дрел%')
+   EXCEPT
+   SELECT id FROM items
+   WHERE UPPER(name) LIKE UPPER('%дрел%') OR UPPER(description) LIKE UPPER('%дрел%'))
+) diff;
+
+DROP SCHEMA shareit_bench CASCADE;
@@ -1,12 +1,16 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.constants.HttpHeadersConstants;
+import ru.practicum.shareit.pagination.KeysetCursor;
 
 import java.util.List;
 
@@ -39,20 +43,48 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingResponseDto> getUserBookings(
+    public ResponseEntity<List<BookingResponseDto>> getUserBookings(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long bookerId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
-        return bookingService.getUserBookings(bookerId, state, from, size);
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
+        return withNextCursor(bookingService.getUserBookings(bookerId, state, from, size,
+                KeysetCursor.decode(cursor)), size);
     }
 
     @GetMapping("/owner")
-    public List<BookingResponseDto> getOwnerBookings(
+    public ResponseEntity<List<BookingResponseDto>> getOwnerBookings(
             @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") Integer from,
-            @RequestParam(defaultValue = "10") Integer size) {
-        return bookingService.getOwnerBookings(ownerId, state, from, size);
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
+        return withNextCursor(bookingService.getOwnerBookings(ownerId, state, from, size,
+                KeysetCursor.decode(cursor)), size);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportOwnerBookings(
+            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long ownerId,
+            @RequestParam(defaultValue = "ALL") BookingState state) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingService.exportOwnerBookings(ownerId, state));
+    }
+
+    // Полная страница может быть не последней: отдаём курсор для продолжения после её последней записи
+    private static ResponseEntity<List<BookingResponseDto>> withNextCursor(List<BookingResponseDto> bookings,
+                                                                           int size) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            response.header(HttpHeadersConstants.NEXT_CURSOR_HEADER,
+                    after(bookings.get(bookings.size() - 1)).encode());
+        }
+        return response.body(bookings);
+    }
+
+    private static KeysetCursor after(BookingResponseDto booking) {
+        return new KeysetCursor(booking.getStart(), booking.getId());
+    }
+}
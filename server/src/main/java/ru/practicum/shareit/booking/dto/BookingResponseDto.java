@@ -18,6 +18,12 @@ public class BookingResponseDto {
     private BookerDto booker;
     private BookingStatus status;
 
+    // Плоский конструктор для проекций в запросах
+    public BookingResponseDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                              Long itemId, String itemName, Long bookerId, String bookerName) {
+        this(id, start, end, new ItemDto(itemId, itemName), new BookerDto(bookerId, bookerName), status);
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface ItemBookingInfo extends BookingInfo {
+    Long getItemId();
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.booking.interval;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+// Кэш подтверждённых бронирований по вещам для быстрой проверки пересечений за O(log n) и календаря.
+// Интервалы вещи загружаются из БД при первом обращении и дальше обновляются на месте.
+// Размер кэша ограничен общим числом интервалов, давно не запрошенные вещи вытесняются.
+// Знает только о подтверждениях этого экземпляра сервера, поэтому само подтверждение проверяется по БД.
+@Component
+public class BookingIntervalIndex {
+    private static final int LOCK_STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemIntervals> intervals;
+    // Загрузка и изменения интервалов вещи выполняются под её блокировкой, чтобы изменение не потерялось,
+    // пока снимок читается из БД. ReentrantLock, а не монитор внутри computeIfAbsent: запрос к БД под
+    // synchronized закрепил бы виртуальный поток за несущим
+    private final ReentrantLock[] locks = IntStream.range(0, LOCK_STRIPES)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(ReentrantLock[]::new);
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                BookingIntervalProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.intervals = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxIntervals())
+                .weigher((Long itemId, ItemIntervals itemIntervals) -> itemIntervals.size() + 1)
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, intervals, "booking-intervals");
+    }
+
+    public boolean overlaps(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return load(itemId).overlaps(start, end);
+    }
+
+    public List<TimeSlotDto> freeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return load(itemId).freeSlots(from, to);
+    }
+
+    // Интервал попадает в кэш только после фиксации: до неё подтверждение может откатиться, и создание
+    // бронирования или календарь не должны его видеть. Сами подтверждения кэш не читают, они проверяются по БД.
+    // Если вещи нет в кэше, интервал придёт из БД при следующей загрузке
+    public void add(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        long bookingId = booking.getId();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        Runnable change = () -> update(itemId, current -> current.with(bookingId, start, end));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    // Кэш вещи разошёлся с БД (подтверждение на другом экземпляре) или вещь удалена: при следующем
+    // обращении интервалы загрузятся заново. Запись сбрасывается ещё раз по завершении транзакции,
+    // иначе параллельное чтение успело бы загрузить в кэш снимок до фиксации
+    public void evict(Long itemId) {
+        invalidate(itemId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(itemId);
+            }
+        });
+    }
+
+    public boolean contains(Long itemId) {
+        return intervals.getIfPresent(itemId) != null;
+    }
+
+    // Бронирования удаляются вместе с пользователем каскадно, проще сбросить кэш целиком
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            intervals.invalidateAll();
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ItemIntervals load(Long itemId) {
+        ItemIntervals cached = intervals.getIfPresent(itemId);
+        if (cached != null) {
+            return cached;
+        }
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            cached = intervals.getIfPresent(itemId);
+            if (cached == null) {
+                cached = ItemIntervals.of(bookingRepository.findApprovedBookings(itemId));
+                intervals.put(itemId, cached);
+            }
+            return cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidate(Long itemId) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            intervals.invalidate(itemId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(Long itemId, UnaryOperator<ItemIntervals> change) {
+        ReentrantLock lock = lockFor(itemId);
+        lock.lock();
+        try {
+            intervals.asMap().computeIfPresent(itemId, (id, current) -> change.apply(current));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(Long itemId) {
+        return locks[Math.floorMod(itemId.hashCode(), LOCK_STRIPES)];
+    }
+}
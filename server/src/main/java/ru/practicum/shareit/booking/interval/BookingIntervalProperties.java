@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.interval;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.bookings.intervals")
+public class BookingIntervalProperties {
+    // Сколько интервалов всего держать в кэше; вещи с давно не запрошенными интервалами вытесняются первыми
+    private long maxIntervals = 1_000_000;
+    // Через сколько после загрузки или изменения интервалы вещи перечитываются из БД: так в календарь
+    // попадают подтверждения, сделанные другими экземплярами сервера
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.booking.interval;
+
+import ru.practicum.shareit.booking.dto.BookingInfo;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Неизменяемый снимок подтверждённых бронирований вещи, отсортированных по началу.
+// maxEnds[i] — наибольшее окончание среди первых i + 1 интервалов, это позволяет
+// проверить пересечение одним бинарным поиском.
+final class ItemIntervals {
+    private final long[] ids;
+    private final LocalDateTime[] starts;
+    private final LocalDateTime[] ends;
+    private final LocalDateTime[] maxEnds;
+
+    private ItemIntervals(long[] ids, LocalDateTime[] starts, LocalDateTime[] ends) {
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new LocalDateTime[ends.length];
+        for (int i = 0; i < ends.length; i++) {
+            maxEnds[i] = i == 0 || ends[i].isAfter(maxEnds[i - 1]) ? ends[i] : maxEnds[i - 1];
+        }
+    }
+
+    // Бронирования должны быть отсортированы по началу
+    static ItemIntervals of(List<BookingInfo> bookings) {
+        int size = bookings.size();
+        long[] ids = new long[size];
+        LocalDateTime[] starts = new LocalDateTime[size];
+        LocalDateTime[] ends = new LocalDateTime[size];
+        for (int i = 0; i < size; i++) {
+            BookingInfo booking = bookings.get(i);
+            ids[i] = booking.getId();
+            starts[i] = booking.getStart();
+            ends[i] = booking.getEnd();
+        }
+        return new ItemIntervals(ids, starts, ends);
+    }
+
+    // Интервалы полуоткрытые: бронирование может начаться в момент окончания предыдущего
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        int count = countStartingBefore(end);
+        return count > 0 && maxEnds[count - 1].isAfter(start);
+    }
+
+    // Свободные промежутки внутри [from, to): начинаем с первого интервала, заканчивающегося после from,
+    // поэтому стоимость не зависит от длины истории до начала диапазона
+    List<TimeSlotDto> freeSlots(LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDto> slots = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (int i = firstEndingAfter(from); i < starts.length && starts[i].isBefore(to); i++) {
+            if (starts[i].isAfter(cursor)) {
+                slots.add(new TimeSlotDto(cursor, starts[i]));
+            }
+            if (ends[i].isAfter(cursor)) {
+                cursor = ends[i];
+            }
+        }
+        if (cursor.isBefore(to)) {
+            slots.add(new TimeSlotDto(cursor, to));
+        }
+        return slots;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    ItemIntervals with(long id, LocalDateTime start, LocalDateTime end) {
+        if (indexOf(id) >= 0) {
+            return this;
+        }
+        int pos = countStartingBefore(start);
+        while (pos < starts.length && starts[pos].equals(start)) {
+            pos++;
+        }
+        return new ItemIntervals(insert(ids, pos, id), insert(starts, pos, start), insert(ends, pos, end));
+    }
+
+    // Количество интервалов, начинающихся строго раньше момента
+    private int countStartingBefore(LocalDateTime moment) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid].isBefore(moment)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Индекс первого интервала, у которого максимум окончаний строго позже момента
+    private int firstEndingAfter(LocalDateTime moment) {
+        int low = 0;
+        int high = maxEnds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEnds[mid].isAfter(moment)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long[] insert(long[] array, int pos, long value) {
+        long[] result = new long[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+
+    private static LocalDateTime[] insert(LocalDateTime[] array, int pos, LocalDateTime value) {
+        LocalDateTime[] result = new LocalDateTime[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.pagination.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingQueryRepository {
+    // С курсором страница начинается сразу после него, offset при этом не используется
+    List<BookingResponseDto> findBookings(BookingRole role, Long userId, BookingState state, LocalDateTime now,
+                                          KeysetCursor cursor, long offset, int limit);
+
+    // Требует открытой транзакции, поток нужно закрыть после чтения
+    Stream<BookingResponseDto> streamBookings(BookingRole role, Long userId, BookingState state,
+                                              LocalDateTime now, int fetchSize);
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Один запрос на страницу для любой роли и состояния: вещь и бронирующий присоединяются
+// в том же SQL и сразу собираются в BookingResponseDto, без загрузки сущностей
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BookingResponseDto> findBookings(BookingRole role, Long userId, BookingState state, LocalDateTime now,
+                                                 KeysetCursor cursor, long offset, int limit) {
+        return entityManager.createQuery(buildQuery(role, userId, state, now, cursor))
+                .setFirstResult(cursor != null ? 0 : (int) offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Тот же запрос без страниц: строки читаются курсором БД порциями по fetchSize.
+    // Проекции не попадают в контекст персистентности, память не растёт с длиной истории
+    @Override
+    public Stream<BookingResponseDto> streamBookings(BookingRole role, Long userId, BookingState state,
+                                                    LocalDateTime now, int fetchSize) {
+        return entityManager.createQuery(buildQuery(role, userId, state, now, null))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private CriteriaQuery<BookingResponseDto> buildQuery(BookingRole role, Long userId, BookingState state,
+                                                         LocalDateTime now, KeysetCursor cursor) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingResponseDto> query = cb.createQuery(BookingResponseDto.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item");
+        Join<Booking, User> booker = booking.join("booker");
+
+        query.select(cb.construct(BookingResponseDto.class,
+                booking.get("id"),
+                booking.get("start"),
+                booking.get("end"),
+                booking.get("status"),
+                item.get("id"),
+                item.get("name"),
+                booker.get("id"),
+                booker.get("name")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(rolePredicate(cb, booking, item, role, userId));
+        Predicate statePredicate = statePredicate(cb, booking, state, now);
+        if (statePredicate != null) {
+            predicates.add(statePredicate);
+        }
+        if (cursor != null) {
+            // Keyset по (start, id): продолжение без OFFSET по тому же индексу.
+            // Отдельное условие на start становится границей сканирования индекса, OR остаётся фильтром
+            predicates.add(cb.lessThanOrEqualTo(booking.get("start"), cursor.time()));
+            predicates.add(cb.or(
+                    cb.lessThan(booking.get("start"), cursor.time()),
+                    cb.and(cb.equal(booking.get("start"), cursor.time()),
+                            cb.lessThan(booking.get("id"), cursor.id()))));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+        return query;
+    }
+
+    private static Predicate rolePredicate(CriteriaBuilder cb, Root<Booking> booking, Join<Booking, Item> item,
+                                           BookingRole role, Long userId) {
+        return switch (role) {
+            case BOOKER -> cb.equal(booking.get("booker").get("id"), userId);
+            case OWNER -> cb.equal(item.get("owner").get("id"), userId);
+        };
+    }
+
+    private static Predicate statePredicate(CriteriaBuilder cb, Root<Booking> booking,
+                                            BookingState state, LocalDateTime now) {
+        return switch (state) {
+            case ALL -> null;
+            case CURRENT -> cb.and(
+                    cb.lessThan(booking.get("start"), now),
+                    cb.greaterThan(booking.get("end"), now));
+            case PAST -> cb.lessThan(booking.get("end"), now);
+            case FUTURE -> cb.greaterThan(booking.get("start"), now);
+            case WAITING -> cb.equal(booking.get("status"), BookingStatus.WAITING);
+            case REJECTED -> cb.equal(booking.get("status"), BookingStatus.REJECTED);
+        };
+    }
+}
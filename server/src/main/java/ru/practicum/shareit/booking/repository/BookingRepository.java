@@ -1,33 +1,81 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingInfo;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ItemBookingInfo;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingQueryRepository {
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id = :itemId " +
+    @Query("SELECT b.id AS id, b.booker.id AS bookerId, b.start AS start, b.end AS end " +
+            "FROM Booking b WHERE b.item.id = :itemId " +
             "AND b.status = 'APPROVED' " +
             "AND b.end > :now " +
-            "ORDER BY b.start ASC")
-    List<Booking> findNextBookings(@Param("itemId") Long itemId,
-                                   @Param("now") LocalDateTime now);
+            "ORDER BY b.start ASC " +
+            "LIMIT 1")
+    Optional<BookingInfo> findNextBooking(@Param("itemId") Long itemId,
+                                          @Param("now") LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b WHERE b.item.id = :itemId " +
+    @Query("SELECT b.id AS id, b.booker.id AS bookerId, b.start AS start, b.end AS end " +
+            "FROM Booking b WHERE b.item.id = :itemId " +
             "AND b.status = 'APPROVED' " +
             "AND b.end < :now " +
-            "ORDER BY b.end DESC")
-    List<Booking> findLastBookings(@Param("itemId") Long itemId,
-                                   @Param("now") LocalDateTime now);
+            "ORDER BY b.end DESC " +
+            "LIMIT 1")
+    Optional<BookingInfo> findLastBooking(@Param("itemId") Long itemId,
+                                          @Param("now") LocalDateTime now);
+
+    // Последнее и следующее подтверждённые бронирования сразу для набора вещей (не более двух строк на вещь)
+    @Query(value = "SELECT ranked.id AS \"id\", ranked.item_id AS \"itemId\", ranked.booker_id AS \"bookerId\", " +
+            "ranked.start_date AS \"start\", ranked.end_date AS \"end\" " +
+            "FROM (SELECT b.id, b.item_id, b.booker_id, b.start_date, b.end_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY b.item_id, CASE WHEN b.end_date < :now THEN 0 ELSE 1 END " +
+            "ORDER BY CASE WHEN b.end_date < :now THEN b.end_date END DESC, b.start_date ASC) AS rn " +
+            "FROM bookings b " +
+            "WHERE b.item_id IN (:itemIds) " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.end_date <> :now) ranked " +
+            "WHERE ranked.rn = 1",
+            nativeQuery = true)
+    List<ItemBookingInfo> findLastAndNextBookings(@Param("itemIds") List<Long> itemIds,
+                                                  @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.id AS id, b.booker.id AS bookerId, b.start AS start, b.end AS end " +
+            "FROM Booking b WHERE b.item.id = :itemId " +
+            "AND b.status = 'APPROVED' " +
+            "ORDER BY b.start ASC")
+    List<BookingInfo> findApprovedBookings(@Param("itemId") Long itemId);
+
+    // Проверка по БД, а не по кэшу процесса: подтверждения с других экземпляров сервера в кэш не попадают
+    @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.start < :end " +
+            "AND b.end > :start")
+    boolean existsApprovedOverlap(@Param("itemId") Long itemId,
+                                  @Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
+
+    // Какие из переданных вещей заняты подтверждёнными бронированиями в течение [start, end).
+    // Проверяются только кандидаты поиска, по индексу idx_bookings_item_status_start
+    @Query("SELECT DISTINCT b.item.id FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.start < :end " +
+            "AND b.end > :start")
+    List<Long> findBookedItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                 @Param("start") LocalDateTime start,
+                                 @Param("end") LocalDateTime end);
 
     @Query("SELECT b FROM Booking b WHERE b.item.id = :itemId " +
             "AND b.booker.id = :bookerId " +
@@ -37,29 +85,19 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                               @Param("bookerId") Long bookerId,
                                               @Param("now") LocalDateTime now);
 
-    Optional<Booking> findByIdAndBookerId(Long id, Long bookerId);
+    // Бронирование целиком одной строкой, если пользователь — бронирующий или владелец вещи
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingResponseDto(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, u.id, u.name) " +
+            "FROM Booking b JOIN b.item i JOIN b.booker u " +
+            "WHERE b.id = :bookingId " +
+            "AND (u.id = :userId OR i.owner.id = :userId)")
+    Optional<BookingResponseDto> findBookingView(@Param("bookingId") Long bookingId,
+                                                 @Param("userId") Long userId);
 
-    Optional<Booking> findByIdAndItemOwnerId(Long id, Long ownerId);
+    @Query("SELECT b FROM Booking b JOIN FETCH b.item JOIN FETCH b.booker WHERE b.id = :bookingId")
+    Optional<Booking> findByIdWithItemAndBooker(@Param("bookingId") Long bookingId);
 
-    List<Booking> findByBookerId(Long bookerId, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
-
-    List<Booking> findByBookerIdAndEndBefore(Long bookerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartAfter(Long bookerId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartBeforeAndEndAfter(
-            Long bookerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemOwnerId(Long ownerId, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStatus(Long ownerId, BookingStatus status, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndEndBefore(Long ownerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartAfter(Long ownerId, LocalDateTime start, Pageable pageable);
+    Optional<Booking> findByIdAndBookerId(Long id, Long bookerId);
 
-    List<Booking> findByItemOwnerIdAndStartBeforeAndEndAfter(
-            Long ownerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    Optional<Booking> findByIdAndItemOwnerId(Long id, Long ownerId);
 }
\ No newline at end of file
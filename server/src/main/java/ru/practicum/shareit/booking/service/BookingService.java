@@ -1,8 +1,10 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.pagination.KeysetCursor;
 
 import java.util.List;
 
@@ -13,7 +15,12 @@ public interface BookingService {
 
     BookingResponseDto getBookingById(Long userId, Long bookingId);
 
-    List<BookingResponseDto> getUserBookings(Long bookerId, BookingState state, Integer from, Integer size);
+    List<BookingResponseDto> getUserBookings(Long bookerId, BookingState state, Integer from, Integer size,
+                                             KeysetCursor cursor);
 
-    List<BookingResponseDto> getOwnerBookings(Long ownerId, BookingState state, Integer from, Integer size);
-}
\ No newline at end of file
+    List<BookingResponseDto> getOwnerBookings(Long ownerId, BookingState state, Integer from, Integer size,
+                                              KeysetCursor cursor);
+
+    // Владелец проверяется сразу, бронирования читаются и пишутся в NDJSON при отправке ответа
+    StreamingResponseBody exportOwnerBookings(Long ownerId, BookingState state);
+}
@@ -1,32 +1,45 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final int EXPORT_FETCH_SIZE = 500;
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
 
     @Override
     @Transactional
@@ -50,6 +63,11 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Некорректные даты бронирования");
         }
 
+        // Быстрая проверка по кэшу процесса; окончательная — при подтверждении, по БД
+        if (intervalIndex.overlaps(item.getId(), bookingRequestDto.getStart(), bookingRequestDto.getEnd())) {
+            throw new ConflictException("Вещь уже забронирована на эти даты");
+        }
+
         Booking booking = new Booking();
         booking.setStart(bookingRequestDto.getStart());
         booking.setEnd(bookingRequestDto.getEnd());
@@ -64,7 +82,7 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional
     public BookingResponseDto updateBookingStatus(Long ownerId, Long bookingId, Boolean approved) {
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findByIdWithItemAndBooker(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование не найдено"));
 
         if (!booking.getItem().getOwner().getId().equals(ownerId)) {
@@ -75,116 +93,79 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Бронирование уже обработано");
         }
 
+        if (approved) {
+            // Блокировка строки вещи до конца транзакции упорядочивает параллельные подтверждения
+            // на всех экземплярах сервера, а пересечение проверяется по БД: кэш интервалов знает
+            // только о подтверждениях, сделанных этим экземпляром
+            Long itemId = booking.getItem().getId();
+            itemRepository.findByIdForUpdate(itemId);
+            if (bookingRepository.existsApprovedOverlap(itemId, booking.getStart(), booking.getEnd())) {
+                intervalIndex.evict(itemId);
+                throw new ConflictException("Вещь уже забронирована на эти даты");
+            }
+        }
+
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
         booking = bookingRepository.save(booking);
+        if (approved) {
+            intervalIndex.add(booking);
+        }
 
         return convertToResponseDto(booking);
     }
 
     @Override
     public BookingResponseDto getBookingById(Long userId, Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new NotFoundException("Бронирование не найдено"));
-
-        // Проверка доступа
-        if (!booking.getBooker().getId().equals(userId) &&
-                !booking.getItem().getOwner().getId().equals(userId)) {
-            throw new AccessDeniedException("Доступ запрещен");
-        }
-
-        return convertToResponseDto(booking);
+        // Проверка доступа выполняется в самом запросе, при пустом результате выясняем причину
+        return bookingRepository.findBookingView(bookingId, userId)
+                .orElseThrow(() -> bookingRepository.existsById(bookingId)
+                        ? new AccessDeniedException("Доступ запрещен")
+                        : new NotFoundException("Бронирование не найдено"));
     }
 
     @Override
-    public List<BookingResponseDto> getUserBookings(Long bookerId, BookingState state, Integer from, Integer size) {
+    public List<BookingResponseDto> getUserBookings(Long bookerId, BookingState state, Integer from, Integer size,
+                                             KeysetCursor cursor) {
         if (!userRepository.existsById(bookerId)) {
             throw new UserNotFoundException("Пользователь не найден");
         }
 
-        PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "start"));
-        LocalDateTime now = LocalDateTime.now();
+        return bookingRepository.findBookings(BookingRole.BOOKER, bookerId, state, LocalDateTime.now(),
+                cursor, from, size);
+    }
 
-        switch (state) {
-            case ALL:
-                return bookingRepository.findByBookerId(bookerId, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case CURRENT:
-                return bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(
-                                bookerId, now, now, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case PAST:
-                return bookingRepository.findByBookerIdAndEndBefore(bookerId, now, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case FUTURE:
-                return bookingRepository.findByBookerIdAndStartAfter(bookerId, now, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case WAITING:
-                return bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.WAITING, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case REJECTED:
-                return bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.REJECTED, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            default:
-                throw new ValidationException("Unknown state: " + state);
+    @Override
+    public List<BookingResponseDto> getOwnerBookings(Long ownerId, BookingState state, Integer from, Integer size,
+                                              KeysetCursor cursor) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new UserNotFoundException("Пользователь не найден");
         }
+
+        return bookingRepository.findBookings(BookingRole.OWNER, ownerId, state, LocalDateTime.now(),
+                cursor, from, size);
     }
 
     @Override
-    public List<BookingResponseDto> getOwnerBookings(Long ownerId, BookingState state, Integer from, Integer size) {
+    public StreamingResponseBody exportOwnerBookings(Long ownerId, BookingState state) {
         if (!userRepository.existsById(ownerId)) {
             throw new UserNotFoundException("Пользователь не найден");
         }
 
-        PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "start"));
         LocalDateTime now = LocalDateTime.now();
-
-        switch (state) {
-            case ALL:
-                return bookingRepository.findByItemOwnerId(ownerId, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case CURRENT:
-                return bookingRepository.findByItemOwnerIdAndStartBeforeAndEndAfter(
-                                ownerId, now, now, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case PAST:
-                return bookingRepository.findByItemOwnerIdAndEndBefore(ownerId, now, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case FUTURE:
-                return bookingRepository.findByItemOwnerIdAndStartAfter(ownerId, now, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case WAITING:
-                return bookingRepository.findByItemOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            case REJECTED:
-                return bookingRepository.findByItemOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, pageRequest)
-                        .stream()
-                        .map(this::convertToResponseDto)
-                        .collect(Collectors.toList());
-            default:
-                throw new ValidationException("Unknown state: " + state);
-        }
+        ObjectWriter writer = objectMapper.writerFor(BookingResponseDto.class);
+        // Выполняется в потоке асинхронной обработки запроса, поэтому транзакция открывается здесь же
+        return out -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BookingResponseDto> bookings = bookingRepository.streamBookings(BookingRole.OWNER, ownerId,
+                    state, now, EXPORT_FETCH_SIZE)) {
+                Iterator<BookingResponseDto> iterator = bookings.iterator();
+                while (iterator.hasNext()) {
+                    out.write(writer.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     private BookingResponseDto convertToResponseDto(Booking booking) {
@@ -2,6 +2,7 @@ package ru.practicum.shareit.constants;
 
 public class HttpHeadersConstants {
     public static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     private HttpHeadersConstants() {
     }
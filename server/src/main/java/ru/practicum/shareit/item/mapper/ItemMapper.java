@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -16,6 +17,18 @@ public class ItemMapper {
         );
     }
 
+    // Вещь, созданная в ответ на запрос, в том виде, в каком она показывается в запросе
+    public static ItemRequestDto.ItemResponseDto toItemResponseDto(Item item) {
+        return new ItemRequestDto.ItemResponseDto(
+                item.getId(),
+                item.getName(),
+                item.getOwner().getId(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getRequest().getId()
+        );
+    }
+
     public static Item toItem(ItemDto itemDto, User owner, ItemRequest request) {
         return new Item(
                 itemDto.getId(),
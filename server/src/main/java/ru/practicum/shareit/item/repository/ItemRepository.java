@@ -1,11 +1,17 @@
 package ru.practicum.shareit.item.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,12 +22,63 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT i FROM Item i " +
             "WHERE (UPPER(i.name) LIKE UPPER(CONCAT('%', :text, '%')) " +
             "OR UPPER(i.description) LIKE UPPER(CONCAT('%', :text, '%'))) " +
-            "AND i.available = true")
-    List<Item> searchAvailableByNameOrDescription(@Param("text") String text);
+            "AND i.available = true " +
+            "AND (:cursor IS NULL OR i.id > :cursor) " +
+            "AND (CAST(:start AS LocalDateTime) IS NULL OR NOT EXISTS (SELECT b.id FROM Booking b " +
+            "WHERE b.item.id = i.id AND b.status = 'APPROVED' AND b.start < :end AND b.end > :start)) " +
+            "ORDER BY i.id")
+    List<Item> searchAvailableByNameOrDescription(@Param("text") String text,
+                                                  @Param("cursor") Long cursor,
+                                                  @Param("start") LocalDateTime start,
+                                                  @Param("end") LocalDateTime end,
+                                                  Pageable pageable);
+
+    // Полнотекстовый поиск (только PostgreSQL) по релевантности. Страницы только по смещению:
+    // курсор-id не задаёт позицию в порядке (ts_rank, id)
+    @Query(value = "SELECT i.id, i.name, i.description, i.is_available, i.owner_id, i.request_id " +
+            "FROM items i " +
+            "WHERE i.search_vector @@ to_tsquery('russian', :query) " +
+            "AND i.is_available = true " +
+            "AND (CAST(:start AS TIMESTAMP) IS NULL OR NOT EXISTS (SELECT 1 FROM bookings b " +
+            "WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date < :end AND b.end_date > :start)) " +
+            "ORDER BY ts_rank(i.search_vector, to_tsquery('russian', :query)) DESC, i.id",
+            nativeQuery = true)
+    List<Item> searchAvailableByFullText(@Param("query") String query,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end,
+                                         Pageable pageable);
+
+    // Та же семантика подстроки, что и у LIKE-поиска, но через GIN-индексы pg_trgm (только PostgreSQL)
+    @Query(value = "SELECT i.id, i.name, i.description, i.is_available, i.owner_id, i.request_id " +
+            "FROM items i " +
+            "WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
+            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "AND i.is_available = true " +
+            "AND (CAST(:cursor AS BIGINT) IS NULL OR i.id > :cursor) " +
+            "AND (CAST(:start AS TIMESTAMP) IS NULL OR NOT EXISTS (SELECT 1 FROM bookings b " +
+            "WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date < :end AND b.end_date > :start)) " +
+            "ORDER BY i.id",
+            nativeQuery = true)
+    List<Item> searchAvailableByTrigram(@Param("text") String text,
+                                       @Param("cursor") Long cursor,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end,
+                                       Pageable pageable);
+
+    List<Item> findByAvailableTrueAndIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id = :id")
+    Optional<Item> findByIdForUpdate(@Param("id") Long id);
 
     boolean existsByNameAndOwnerId(String name, Long ownerId);
 
-    List<Item> findByRequestId(Long requestId);
+    // Ответы сразу на страницу запросов: владелец берётся из колонки owner_id, без загрузки пользователя
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestDto$ItemResponseDto(" +
+            "i.id, i.name, i.owner.id, i.description, i.available, i.request.id) " +
+            "FROM Item i WHERE i.request.id IN :requestIds " +
+            "ORDER BY i.id")
+    List<ItemRequestDto.ItemResponseDto> findResponsesByRequestIds(@Param("requestIds") Collection<Long> requestIds);
 
     @Query("SELECT i FROM Item i WHERE i.owner.id = :ownerId AND i.name = :name")
     Optional<Item> findByOwnerIdAndName(@Param("ownerId") Long ownerId,
@@ -0,0 +1,324 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+// Инвертированный индекс по триграммам названия и описания доступных вещей.
+// Триграммы сужают круг кандидатов, а проверка contains сохраняет семантику LIKE '%text%'.
+@Component
+public class ItemSearchIndex {
+    private static final int NGRAM = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, IndexedItem> items = new HashMap<>();
+    private Map<Long, PostingList> postings = new HashMap<>();
+    private PostingList allIds = new PostingList();
+    private volatile boolean stale;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           ItemSearchProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.enabled = properties.getMode() == ItemSearchMode.INDEX;
+
+        Gauge.builder("shareit.search.index.items", this, ItemSearchIndex::size)
+                .description("Количество вещей в поисковом индексе")
+                .register(meterRegistry);
+        Gauge.builder("shareit.search.index.terms", this, ItemSearchIndex::termCount)
+                .description("Количество триграмм в поисковом индексе")
+                .register(meterRegistry);
+        Gauge.builder("shareit.search.index.memory", this, ItemSearchIndex::memoryBytes)
+                .description("Оценка памяти, занятой поисковым индексом")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            items = new HashMap<>();
+            postings = new HashMap<>();
+            allIds = new PostingList();
+            stale = false;
+
+            // Загружаем вещи порциями по возрастанию id
+            long lastId = 0;
+            List<Item> batch;
+            do {
+                batch = itemRepository.findByAvailableTrueAndIdGreaterThanOrderById(
+                        lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Item item : batch) {
+                    addInternal(IndexedItem.of(item));
+                    lastId = item.getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(item.getId());
+            if (Boolean.TRUE.equals(item.getAvailable())) {
+                addInternal(IndexedItem.of(item));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        markStaleOnRollback();
+    }
+
+    public void remove(Long itemId) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        markStaleOnRollback();
+    }
+
+    // Вещи удаляются вместе с владельцем каскадно на уровне БД
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Long> ownedIds = items.values().stream()
+                    .filter(item -> item.ownerId().equals(event.userId()))
+                    .map(IndexedItem::id)
+                    .toList();
+            ownedIds.forEach(this::removeInternal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ItemDto> search(String text, long offset, int size, Long cursor) {
+        if (stale) {
+            rebuild();
+        }
+
+        String query = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = candidateLists(query);
+            if (lists.isEmpty()) {
+                return List.of();
+            }
+
+            // Идём по самому короткому списку, остальные проверяем бинарным поиском
+            PostingList smallest = lists.getFirst();
+            int start = cursor != null ? smallest.indexAfter(cursor) : 0;
+            long skip = cursor != null ? 0 : offset;
+            List<ItemDto> result = new ArrayList<>(size);
+            for (int i = start; i < smallest.size() && result.size() < size; i++) {
+                long id = smallest.get(i);
+                if (!containedInOthers(lists, id)) {
+                    continue;
+                }
+                IndexedItem item = items.get(id);
+                if (!item.matches(query)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(item.toItemDto());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            // Грубая оценка: записи HashMap, ключи Long, списки и строки документов
+            long bytes = allIds.memoryBytes();
+            for (PostingList list : postings.values()) {
+                bytes += 48 + 16 + list.memoryBytes();
+            }
+            for (IndexedItem item : items.values()) {
+                bytes += 48 + 16 + item.memoryBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<PostingList> candidateLists(String query) {
+        if (query.length() < NGRAM) {
+            return List.of(allIds);
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+        for (long gram : ngrams(query)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return List.of();
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        return lists;
+    }
+
+    private static boolean containedInOthers(List<PostingList> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addInternal(IndexedItem item) {
+        items.put(item.id(), item);
+        allIds.add(item.id());
+        for (long gram : item.ngrams()) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(item.id());
+        }
+    }
+
+    private void removeInternal(Long itemId) {
+        IndexedItem item = items.remove(itemId);
+        if (item == null) {
+            return;
+        }
+        allIds.remove(itemId);
+        for (long gram : item.ngrams()) {
+            PostingList list = postings.get(gram);
+            list.remove(itemId);
+            if (list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    // Изменения применяются сразу; если транзакция откатится, индекс перестраивается при следующем поиске
+    private void markStaleOnRollback() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stale = true;
+                }
+            }
+        });
+    }
+
+    static long[] ngrams(String text) {
+        if (text.length() < NGRAM) {
+            return new long[0];
+        }
+        return IntStream.rangeClosed(0, text.length() - NGRAM)
+                .mapToLong(i -> ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2))
+                .distinct()
+                .toArray();
+    }
+
+    private record IndexedItem(Long id, Long ownerId, String name, String description, Long requestId,
+                               String nameKey, String descriptionKey) {
+
+        static IndexedItem of(Item item) {
+            return new IndexedItem(
+                    item.getId(),
+                    item.getOwner().getId(),
+                    item.getName(),
+                    item.getDescription(),
+                    item.getRequest() != null ? item.getRequest().getId() : null,
+                    item.getName().toLowerCase(Locale.ROOT),
+                    item.getDescription().toLowerCase(Locale.ROOT)
+            );
+        }
+
+        boolean matches(String query) {
+            return nameKey.contains(query) || descriptionKey.contains(query);
+        }
+
+        long[] ngrams() {
+            return LongStream.concat(Arrays.stream(ItemSearchIndex.ngrams(nameKey)),
+                            Arrays.stream(ItemSearchIndex.ngrams(descriptionKey)))
+                    .distinct()
+                    .toArray();
+        }
+
+        ItemDto toItemDto() {
+            return new ItemDto(id, name, description, true, requestId);
+        }
+
+        long memoryBytes() {
+            return 64 + 2L * (name.length() + description.length() + nameKey.length() + descriptionKey.length()) + 4 * 24;
+        }
+    }
+}
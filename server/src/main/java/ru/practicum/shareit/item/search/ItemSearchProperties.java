@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.search")
+public class ItemSearchProperties {
+    // LIKE работает на любой БД, FULL_TEXT и TRIGRAM требуют PostgreSQL (schema-postgresql.sql),
+    // INDEX отвечает из индекса в памяти процесса
+    private ItemSearchMode mode = ItemSearchMode.LIKE;
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+
+// Отсортированный список id вещей без упаковки в Long
+class PostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    // Индекс первого id, строго большего заданного
+    int indexAfter(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    void add(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        ids[pos] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        if (size > INITIAL_CAPACITY && size * 4 < ids.length) {
+            ids = Arrays.copyOf(ids, ids.length / 2);
+        }
+    }
+
+    long memoryBytes() {
+        // Заголовок объекта и массива плюс сам массив
+        return 32 + 16 + 8L * ids.length;
+    }
+}
@@ -1,9 +1,11 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookings;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -21,7 +23,10 @@ public interface ItemService {
 
     List<ItemDtoWithBookings> getUserItemsWithBookings(Long ownerId);
 
-    List<ItemDto> searchItems(String text);
+    List<ItemDto> searchItems(String text, Integer from, Integer size, Long cursor,
+                              LocalDateTime start, LocalDateTime end);
+
+    List<TimeSlotDto> getItemAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to);
 
     void deleteItem(Long ownerId, Long itemId);
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.dto.BookingInfo;
+import ru.practicum.shareit.booking.dto.ItemBookingInfo;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.dto.CommentDto;
@@ -14,6 +18,11 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSearchMode;
+import ru.practicum.shareit.item.search.ItemSearchProperties;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -22,18 +31,29 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int SEARCH_BATCH_SIZE = 500;
+
     private final UserService userService;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchProperties searchProperties;
+    private final ItemSearchIndex searchIndex;
+    private final BookingIntervalIndex intervalIndex;
+    private final RequestFeed requestFeed;
 
     @Override
     @Transactional
@@ -56,6 +76,10 @@ public class ItemServiceImpl implements ItemService {
 
         Item item = ItemMapper.toItem(itemDto, owner, request);
         item = itemRepository.save(item);
+        searchIndex.index(item);
+        if (request != null) {
+            requestFeed.putItem(ItemMapper.toItemResponseDto(item));
+        }
 
         return ItemMapper.toItemDto(item);
     }
@@ -79,6 +103,10 @@ public class ItemServiceImpl implements ItemService {
         }
 
         itemRepository.save(existingItem);
+        searchIndex.index(existingItem);
+        if (existingItem.getRequest() != null) {
+            requestFeed.putItem(ItemMapper.toItemResponseDto(existingItem));
+        }
         return ItemMapper.toItemDto(existingItem);
     }
 
@@ -131,40 +159,18 @@ public class ItemServiceImpl implements ItemService {
         if (item.getOwner().getId().equals(userId)) {
             LocalDateTime now = LocalDateTime.now();
 
-            // Последнее бронирование
-            List<Booking> lastBookings = bookingRepository.findLastBookings(itemId, now);
-            if (!lastBookings.isEmpty()) {
-                Booking lastBooking = lastBookings.getFirst();
-                result.setLastBooking(new ItemDtoWithBookings.BookingInfo(
-                        lastBooking.getId(),
-                        lastBooking.getBooker().getId(),
-                        lastBooking.getStart(),
-                        lastBooking.getEnd()
-                ));
-            }
-
-            // Следующее бронирование
-            List<Booking> nextBookings = bookingRepository.findNextBookings(itemId, now);
-            if (!nextBookings.isEmpty()) {
-                Booking nextBooking = nextBookings.getFirst();
-                result.setNextBooking(new ItemDtoWithBookings.BookingInfo(
-                        nextBooking.getId(),
-                        nextBooking.getBooker().getId(),
-                        nextBooking.getStart(),
-                        nextBooking.getEnd()
-                ));
-            }
+            result.setLastBooking(bookingRepository.findLastBooking(itemId, now)
+                    .map(this::toBookingInfo)
+                    .orElse(null));
+            result.setNextBooking(bookingRepository.findNextBooking(itemId, now)
+                    .map(this::toBookingInfo)
+                    .orElse(null));
         }
 
         // Добавляем комментарии
         List<Comment> comments = commentRepository.findByItemId(itemId);
         result.setComments(comments.stream()
-                .map(comment -> new CommentDto(
-                        comment.getId(),
-                        comment.getText(),
-                        comment.getAuthor().getName(),
-                        comment.getCreated()
-                ))
+                .map(this::toCommentDto)
                 .collect(Collectors.toList()));
 
         return result;
@@ -182,61 +188,84 @@ public class ItemServiceImpl implements ItemService {
     public List<ItemDtoWithBookings> getUserItemsWithBookings(Long ownerId) {
         getUser(ownerId);
         List<Item> items = itemRepository.findByOwnerIdOrderById(ownerId);
+        if (items.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
         LocalDateTime now = LocalDateTime.now();
 
+        // Последние и следующие бронирования всех вещей владельца одним запросом
+        Map<Long, ItemBookingInfo> lastBookings = new HashMap<>();
+        Map<Long, ItemBookingInfo> nextBookings = new HashMap<>();
+        for (ItemBookingInfo booking : bookingRepository.findLastAndNextBookings(itemIds, now)) {
+            if (booking.getEnd().isBefore(now)) {
+                lastBookings.put(booking.getItemId(), booking);
+            } else {
+                nextBookings.put(booking.getItemId(), booking);
+            }
+        }
+
+        // Комментарии всех вещей вместе с авторами одним запросом
+        Map<Long, List<CommentDto>> comments = commentRepository.findByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(this::toCommentDto, Collectors.toList())));
+
         return items.stream()
                 .map(item -> {
                     ItemDtoWithBookings dto = convertToItemDtoWithBookings(item);
-
-                    // Последнее бронирование
-                    List<Booking> lastBookings = bookingRepository.findLastBookings(item.getId(), now);
-                    if (!lastBookings.isEmpty()) {
-                        Booking lastBooking = lastBookings.getFirst();
-                        dto.setLastBooking(new ItemDtoWithBookings.BookingInfo(
-                                lastBooking.getId(),
-                                lastBooking.getBooker().getId(),
-                                lastBooking.getStart(),
-                                lastBooking.getEnd()
-                        ));
-                    }
-
-                    // Следующее бронирование
-                    List<Booking> nextBookings = bookingRepository.findNextBookings(item.getId(), now);
-                    if (!nextBookings.isEmpty()) {
-                        Booking nextBooking = nextBookings.getFirst();
-                        dto.setNextBooking(new ItemDtoWithBookings.BookingInfo(
-                                nextBooking.getId(),
-                                nextBooking.getBooker().getId(),
-                                nextBooking.getStart(),
-                                nextBooking.getEnd()
-                        ));
-                    }
-
-                    // Комментарии
-                    List<Comment> comments = commentRepository.findByItemId(item.getId());
-                    dto.setComments(comments.stream()
-                            .map(comment -> new CommentDto(
-                                    comment.getId(),
-                                    comment.getText(),
-                                    comment.getAuthor().getName(),
-                                    comment.getCreated()
-                            ))
-                            .collect(Collectors.toList()));
-
+                    dto.setLastBooking(toBookingInfo(lastBookings.get(item.getId())));
+                    dto.setNextBooking(toBookingInfo(nextBookings.get(item.getId())));
+                    dto.setComments(comments.getOrDefault(item.getId(), List.of()));
                     return dto;
                 })
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<ItemDto> searchItems(String text) {
+    public List<ItemDto> searchItems(String text, Integer from, Integer size, Long cursor,
+                                     LocalDateTime start, LocalDateTime end) {
+        if (from < 0 || size <= 0) {
+            throw new ValidationException("Некорректные параметры пагинации");
+        }
+        if ((start == null) != (end == null) || start != null && !start.isBefore(end)) {
+            throw new ValidationException("Некорректный период бронирования");
+        }
         if (text == null || text.isBlank()) {
             return List.of();
         }
 
-        return itemRepository.searchAvailableByNameOrDescription(text).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        // Выдача по релевантности не упорядочена по id, и курсор по id в ней не задаёт позицию
+        if (cursor != null && searchProperties.getMode() == ItemSearchMode.FULL_TEXT) {
+            throw new ValidationException("Курсор не поддерживается при поиске по релевантности, используйте from");
+        }
+
+        // С курсором выбираем страницу по ключу (id > cursor) вместо OFFSET
+        Pageable pageRequest = OffsetPageRequest.of(cursor != null ? 0 : from, size);
+        return switch (searchProperties.getMode()) {
+            case LIKE -> toItemDtos(itemRepository.searchAvailableByNameOrDescription(
+                    text, cursor, start, end, pageRequest));
+            case FULL_TEXT -> toItemDtos(searchByFullText(text, start, end, pageRequest));
+            case TRIGRAM -> toItemDtos(itemRepository.searchAvailableByTrigram(text, cursor, start, end, pageRequest));
+            case INDEX -> start != null
+                    ? searchIndexFree(text, pageRequest.getOffset(), size, cursor, start, end)
+                    : searchIndex.search(text, pageRequest.getOffset(), size, cursor);
+        };
+    }
+
+    @Override
+    public List<TimeSlotDto> getItemAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше окончания");
+        }
+        // Календарь загружает интервалы вещи в кэш, поэтому доступен только существующим пользователям
+        getUser(userId);
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException("Вещь не найдена");
+        }
+        return intervalIndex.freeSlots(itemId, from, to);
     }
 
     @Override
@@ -246,6 +275,58 @@ public class ItemServiceImpl implements ItemService {
         getUser(ownerId); // Проверка существования пользователя
         checkOwnership(item, ownerId);
         itemRepository.deleteById(itemId);
+        searchIndex.remove(itemId);
+        intervalIndex.evict(itemId);
+        if (item.getRequest() != null) {
+            requestFeed.removeItem(item.getRequest().getId(), itemId);
+        }
+    }
+
+    // Индекс отдаёт совпадения порциями по возрастанию id, занятость проверяется только у них.
+    // Смещение отсчитывается среди свободных вещей, как и в запросах к БД
+    private List<ItemDto> searchIndexFree(String text, long offset, int size, Long cursor,
+                                          LocalDateTime start, LocalDateTime end) {
+        List<ItemDto> result = new ArrayList<>(size);
+        long skip = offset;
+        Long after = cursor;
+        List<ItemDto> candidates;
+        do {
+            candidates = searchIndex.search(text, 0, SEARCH_BATCH_SIZE, after);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Set<Long> booked = Set.copyOf(bookingRepository.findBookedItemIds(candidates.stream()
+                    .map(ItemDto::getId)
+                    .toList(), start, end));
+            for (ItemDto candidate : candidates) {
+                if (booked.contains(candidate.getId())) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(candidate);
+                if (result.size() == size) {
+                    return result;
+                }
+            }
+            after = candidates.getLast().getId();
+        } while (candidates.size() == SEARCH_BATCH_SIZE);
+        return result;
+    }
+
+    private List<Item> searchByFullText(String text, LocalDateTime start, LocalDateTime end,
+                                        Pageable pageRequest) {
+        // Каждое слово ищется по префиксу: "дрел" -> "дрел:*"; спецсимволы tsquery отбрасываются
+        String query = Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        return itemRepository.searchAvailableByFullText(query, start, end, pageRequest);
     }
 
     private Item getItemById(Long itemId) {
@@ -292,4 +373,31 @@ public class ItemServiceImpl implements ItemService {
         dto.setRequestId(item.getRequest() != null ? item.getRequest().getId() : null);
         return dto;
     }
+
+    private List<ItemDto> toItemDtos(List<Item> items) {
+        return items.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    private ItemDtoWithBookings.BookingInfo toBookingInfo(BookingInfo booking) {
+        if (booking == null) {
+            return null;
+        }
+        return new ItemDtoWithBookings.BookingInfo(
+                booking.getId(),
+                booking.getBookerId(),
+                booking.getStart(),
+                booking.getEnd()
+        );
+    }
+
+    private CommentDto toCommentDto(Comment comment) {
+        return new CommentDto(
+                comment.getId(),
+                comment.getText(),
+                comment.getAuthor().getName(),
+                comment.getCreated()
+        );
+    }
 }
\ No newline at end of file
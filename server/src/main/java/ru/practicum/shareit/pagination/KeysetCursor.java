@@ -0,0 +1,34 @@
+package ru.practicum.shareit.pagination;
+
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Позиция в списке, упорядоченном по (time DESC, id DESC): последняя выданная запись.
+// time — дата, по которой идёт сортировка (начало бронирования, создание запроса).
+// Клиенту отдаётся непрозрачной строкой, внутреннее представление может меняться.
+public record KeysetCursor(LocalDateTime time, Long id) {
+    private static final String SEPARATOR = "|";
+
+    public static KeysetCursor decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int pos = value.indexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(value.substring(0, pos)),
+                    Long.parseLong(value.substring(pos + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Некорректный курсор");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((time + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
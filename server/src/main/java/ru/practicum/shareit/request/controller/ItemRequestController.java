@@ -1,8 +1,10 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.constants.HttpHeadersConstants;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
@@ -22,9 +24,21 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<ItemRequestDto> getUserRequests(
-            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId) {
-        return itemRequestService.getUserRequests(userId);
+    public ResponseEntity<List<ItemRequestDto>> getUserRequests(
+            @RequestHeader(HttpHeadersConstants.USER_ID_HEADER) Long userId,
+            @RequestParam(defaultValue = "0") Integer from,
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor) {
+        List<ItemRequestDto> requests = itemRequestService.getUserRequests(userId, from, size,
+                KeysetCursor.decode(cursor));
+
+        // Полная страница может быть не последней: отдаём курсор для продолжения после её последней записи
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!requests.isEmpty() && requests.size() == size) {
+            response.header(HttpHeadersConstants.NEXT_CURSOR_HEADER,
+                    after(requests.get(requests.size() - 1)).encode());
+        }
+        return response.body(requests);
     }
 
     @GetMapping("/all")
@@ -41,4 +55,8 @@ public class ItemRequestController {
             @PathVariable Long requestId) {
         return itemRequestService.getRequestById(userId, requestId);
     }
-}
\ No newline at end of file
+
+    private static KeysetCursor after(ItemRequestDto request) {
+        return new KeysetCursor(request.getCreated(), request.getId());
+    }
+}
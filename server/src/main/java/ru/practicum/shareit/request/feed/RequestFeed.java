@@ -0,0 +1,284 @@
+package ru.practicum.shareit.request.feed;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Лента последних запросов всех пользователей вместе с вещами-ответами: кольцевой буфер на capacity записей
+// в порядке (created, id). Первые страницы /requests/all собираются из неё, свои запросы отсеиваются при чтении.
+@Component
+public class RequestFeed {
+    private static final Comparator<FeedEntry> FEED_ORDER = Comparator.comparing(FeedEntry::created)
+            .thenComparing(FeedEntry::id);
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final int capacity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final FeedEntry[] entries;
+    private final Map<Long, FeedEntry> entriesById = new HashMap<>();
+    // Позиция самой старой записи и число записей
+    private int oldest;
+    private int size;
+    // В ленте все запросы из БД: пока ничего не вытеснено, нехватку записей не нужно добирать из БД
+    private boolean complete;
+    private volatile boolean stale = true;
+
+    public RequestFeed(ItemRequestRepository itemRequestRepository,
+                       ItemRepository itemRepository,
+                       RequestFeedProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.enabled = properties.isEnabled() && properties.getCapacity() > 0;
+        this.capacity = properties.getCapacity();
+        this.entries = new FeedEntry[enabled ? capacity : 0];
+
+        Gauge.builder("shareit.requests.feed.size", this, RequestFeed::size)
+                .description("Количество запросов в ленте в памяти")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            clear();
+            stale = false;
+
+            // На одну запись больше ёмкости: так видно, остались ли в БД запросы старше ленты
+            List<ItemRequest> latest = itemRequestRepository.findLatest(PageRequest.of(0, capacity + 1));
+            complete = latest.size() <= capacity;
+            List<ItemRequest> kept = latest.subList(0, Math.min(latest.size(), capacity));
+            if (kept.isEmpty()) {
+                return;
+            }
+
+            Map<Long, List<ItemRequestDto.ItemResponseDto>> itemsByRequest = itemRepository
+                    .findResponsesByRequestIds(kept.stream().map(ItemRequest::getId).toList()).stream()
+                    .collect(Collectors.groupingBy(ItemRequestDto.ItemResponseDto::getRequestId));
+            for (int i = kept.size() - 1; i >= 0; i--) {
+                ItemRequest request = kept.get(i);
+                insertInternal(FeedEntry.of(request, itemsByRequest.getOrDefault(request.getId(), List.of())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addRequest(ItemRequest request) {
+        if (!enabled) {
+            return;
+        }
+
+        FeedEntry entry = FeedEntry.of(request, List.of());
+        afterCommit(() -> insertInternal(entry));
+    }
+
+    // Вещь по запросу, которого уже нет в ленте, ничего не меняет
+    public void putItem(ItemRequestDto.ItemResponseDto item) {
+        if (!enabled) {
+            return;
+        }
+
+        afterCommit(() -> {
+            FeedEntry entry = entriesById.get(item.getRequestId());
+            if (entry != null) {
+                List<ItemRequestDto.ItemResponseDto> items = new ArrayList<>(entry.items);
+                items.removeIf(existing -> existing.getId().equals(item.getId()));
+                items.add(item);
+                items.sort(Comparator.comparing(ItemRequestDto.ItemResponseDto::getId));
+                entry.items = List.copyOf(items);
+            }
+        });
+    }
+
+    public void removeItem(Long requestId, Long itemId) {
+        if (!enabled) {
+            return;
+        }
+
+        afterCommit(() -> {
+            FeedEntry entry = entriesById.get(requestId);
+            if (entry != null) {
+                entry.items = entry.items.stream()
+                        .filter(item -> !item.getId().equals(itemId))
+                        .toList();
+            }
+        });
+    }
+
+    // Вместе с пользователем каскадно удаляются его запросы и вещи: ленту проще собрать заново
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        stale = true;
+    }
+
+    // Страница чужих запросов от новых к старым. Пусто, если лента не покрывает страницу и её надо читать из БД
+    public Optional<List<ItemRequestDto>> findPage(Long userId, long offset, int limit) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        if (stale) {
+            rebuild();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<ItemRequestDto> page = new ArrayList<>(limit);
+            long skip = offset;
+            for (int i = size - 1; i >= 0 && page.size() < limit; i--) {
+                FeedEntry entry = entries[(oldest + i) % capacity];
+                if (entry.requestorId.equals(userId)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                page.add(entry.toDto());
+            }
+            if (page.size() < limit && !complete) {
+                return Optional.empty();
+            }
+            return Optional.of(page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Записи идут почти по порядку, поэтому новая обычно встаёт в конец без сдвигов
+    private void insertInternal(FeedEntry entry) {
+        if (entriesById.containsKey(entry.id)) {
+            return;
+        }
+        if (size == capacity) {
+            if (FEED_ORDER.compare(entry, entries[oldest]) < 0) {
+                complete = false;
+                return;
+            }
+            entriesById.remove(entries[oldest].id);
+            entries[oldest] = null;
+            oldest = (oldest + 1) % capacity;
+            size--;
+            complete = false;
+        }
+
+        int pos = size;
+        while (pos > 0 && FEED_ORDER.compare(entries[(oldest + pos - 1) % capacity], entry) > 0) {
+            entries[(oldest + pos) % capacity] = entries[(oldest + pos - 1) % capacity];
+            pos--;
+        }
+        entries[(oldest + pos) % capacity] = entry;
+        entriesById.put(entry.id, entry);
+        size++;
+    }
+
+    private void clear() {
+        for (int i = 0; i < size; i++) {
+            entries[(oldest + i) % capacity] = null;
+        }
+        entriesById.clear();
+        oldest = 0;
+        size = 0;
+    }
+
+    // Лента меняется после фиксации транзакции: незафиксированный запрос не виден другим пользователям,
+    // а перестроение, прочитавшее БД до фиксации, его не потеряет (повторная вставка игнорируется)
+    private void afterCommit(Runnable change) {
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locked.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                locked.run();
+            }
+        });
+    }
+
+    private static final class FeedEntry {
+        private final Long id;
+        private final String description;
+        private final LocalDateTime created;
+        private final Long requestorId;
+        // Неизменяемый список, при изменении заменяется целиком под блокировкой записи
+        private List<ItemRequestDto.ItemResponseDto> items;
+
+        private FeedEntry(Long id, String description, LocalDateTime created, Long requestorId,
+                          List<ItemRequestDto.ItemResponseDto> items) {
+            this.id = id;
+            this.description = description;
+            this.created = created;
+            this.requestorId = requestorId;
+            this.items = List.copyOf(items);
+        }
+
+        static FeedEntry of(ItemRequest request, List<ItemRequestDto.ItemResponseDto> items) {
+            return new FeedEntry(request.getId(), request.getDescription(), request.getCreated(),
+                    request.getRequestor().getId(), items);
+        }
+
+        Long id() {
+            return id;
+        }
+
+        LocalDateTime created() {
+            return created;
+        }
+
+        ItemRequestDto toDto() {
+            List<ItemRequestDto.ItemResponseDto> copies = items.stream()
+                    .map(item -> new ItemRequestDto.ItemResponseDto(item.getId(), item.getName(), item.getOwnerId(),
+                            item.getDescription(), item.getAvailable(), item.getRequestId()))
+                    .collect(Collectors.toList());
+            return new ItemRequestDto(id, description, created, copies);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.feed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.requests.feed")
+public class RequestFeedProperties {
+    // Выключенная лента не хранит запросы, и /requests/all всегда читается из БД
+    private boolean enabled = false;
+    // Сколько последних запросов держать в памяти
+    private int capacity = 1000;
+}
@@ -21,7 +21,7 @@ public class ItemRequest {
     @Column(name = "description", nullable = false, length = 1000)
     private String description;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "requestor_id", nullable = false)
     private User requestor;
 
@@ -7,14 +7,31 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequestorIdOrderByCreatedDesc(Long requestorId);
+    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requestor.id = :userId " +
+            "ORDER BY ir.created DESC, ir.id DESC")
+    List<ItemRequest> findByRequestorId(@Param("userId") Long userId, Pageable pageable);
+
+    // Продолжение после курсора. Условие created <= :created избыточно, но даёт границу диапазона по индексу
+    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requestor.id = :userId " +
+            "AND ir.created <= :created " +
+            "AND (ir.created < :created OR (ir.created = :created AND ir.id < :id)) " +
+            "ORDER BY ir.created DESC, ir.id DESC")
+    List<ItemRequest> findByRequestorIdAfter(@Param("userId") Long userId,
+                                             @Param("created") LocalDateTime created,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
 
     List<ItemRequest> findByRequestorIdNotOrderByCreatedDesc(Long requestorId, Pageable pageable);
 
-    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requestor.id != :userId ORDER BY ir.created DESC")
+    @Query("SELECT ir FROM ItemRequest ir WHERE ir.requestor.id != :userId ORDER BY ir.created DESC, ir.id DESC")
     List<ItemRequest> findAllByRequestorIdNot(@Param("userId") Long userId, Pageable pageable);
+
+    // Последние запросы всех пользователей для ленты в памяти
+    @Query("SELECT ir FROM ItemRequest ir ORDER BY ir.created DESC, ir.id DESC")
+    List<ItemRequest> findLatest(Pageable pageable);
 }
\ No newline at end of file
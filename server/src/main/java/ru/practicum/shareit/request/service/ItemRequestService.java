@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
@@ -7,7 +8,7 @@ import java.util.List;
 public interface ItemRequestService {
     ItemRequestDto createRequest(Long userId, ItemRequestDto itemRequestDto);
 
-    List<ItemRequestDto> getUserRequests(Long userId);
+    List<ItemRequestDto> getUserRequests(Long userId, Integer from, Integer size, KeysetCursor cursor);
 
     List<ItemRequestDto> getAllRequests(Long userId, Integer from, Integer size);
 
@@ -2,13 +2,16 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.pagination.OffsetPageRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -16,6 +19,8 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +29,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final RequestFeed requestFeed;
 
     @Override
     @Transactional
@@ -37,18 +43,22 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         itemRequest.setCreated(LocalDateTime.now());
 
         itemRequest = itemRequestRepository.save(itemRequest);
-        return convertToDto(itemRequest);
+        requestFeed.addRequest(itemRequest);
+        return convertToDto(itemRequest, List.of());
     }
 
     @Override
-    public List<ItemRequestDto> getUserRequests(Long userId) {
+    public List<ItemRequestDto> getUserRequests(Long userId, Integer from, Integer size, KeysetCursor cursor) {
         if (!userRepository.existsById(userId)) {
             throw new UserNotFoundException("Пользователь не найден");
         }
 
-        return itemRequestRepository.findByRequestorIdOrderByCreatedDesc(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // С курсором смещение не нужно: страница начинается сразу после него
+        if (cursor != null) {
+            return convertToDtos(itemRequestRepository.findByRequestorIdAfter(userId, cursor.time(), cursor.id(),
+                    PageRequest.of(0, size)));
+        }
+        return convertToDtos(itemRequestRepository.findByRequestorId(userId, OffsetPageRequest.of(from, size)));
     }
 
     @Override
@@ -57,10 +67,12 @@ public class ItemRequestServiceImpl implements ItemRequestService {
             throw new UserNotFoundException("Пользователь не найден");
         }
 
-        PageRequest pageRequest = PageRequest.of(from / size, size);
-        return itemRequestRepository.findAllByRequestorIdNot(userId, pageRequest).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        Pageable pageRequest = OffsetPageRequest.of(from, size);
+        Optional<List<ItemRequestDto>> fromFeed = requestFeed.findPage(userId, from, size);
+        if (fromFeed.isPresent()) {
+            return fromFeed.get();
+        }
+        return convertToDtos(itemRequestRepository.findAllByRequestorIdNot(userId, pageRequest));
     }
 
     @Override
@@ -72,28 +84,34 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         ItemRequest itemRequest = itemRequestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("Запрос не найден"));
 
-        return convertToDto(itemRequest);
+        return convertToDtos(List.of(itemRequest)).get(0);
     }
 
-    private ItemRequestDto convertToDto(ItemRequest itemRequest) {
+    // Вещи, созданные в ответ на запросы, загружаются одним запросом на всю страницу
+    private List<ItemRequestDto> convertToDtos(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> requestIds = itemRequests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ItemRequestDto.ItemResponseDto>> itemsByRequest =
+                itemRepository.findResponsesByRequestIds(requestIds).stream()
+                        .collect(Collectors.groupingBy(ItemRequestDto.ItemResponseDto::getRequestId));
+
+        return itemRequests.stream()
+                .map(itemRequest -> convertToDto(itemRequest,
+                        itemsByRequest.getOrDefault(itemRequest.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private ItemRequestDto convertToDto(ItemRequest itemRequest, List<ItemRequestDto.ItemResponseDto> items) {
         ItemRequestDto dto = new ItemRequestDto();
         dto.setId(itemRequest.getId());
         dto.setDescription(itemRequest.getDescription());
         dto.setCreated(itemRequest.getCreated());
-
-        // Добавляем информацию о вещах, созданных в ответ на этот запрос
-        List<Item> items = itemRepository.findByRequestId(itemRequest.getId());
-        dto.setItems(items.stream()
-                .map(item -> new ItemRequestDto.ItemResponseDto(
-                        item.getId(),
-                        item.getName(),
-                        item.getOwner().getId(),
-                        item.getDescription(),
-                        item.getAvailable(),
-                        itemRequest.getId()
-                ))
-                .collect(Collectors.toList()));
-
+        dto.setItems(items);
         return dto;
     }
 }
\ No newline at end of file
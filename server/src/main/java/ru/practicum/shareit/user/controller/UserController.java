@@ -1,12 +1,26 @@
 package ru.practicum.shareit.user.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 import ru.practicum.shareit.user.service.UserService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping(path = "/users")
@@ -14,12 +28,26 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public UserDto createUser(@Valid @RequestBody UserDto userDto) {
         return userService.createUser(userDto);
     }
 
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<UserImportResultDto> importUsers(@RequestBody List<UserDto> users) {
+        return userService.importUsers(users.iterator());
+    }
+
+    // NDJSON: по одному пользователю в строке. Строки разбираются по одной по мере импорта,
+    // поэтому тело целиком в памяти не держится
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<UserImportResultDto> importUsersNdjson(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return userService.importUsers(new NdjsonRows(reader, objectMapper.readerFor(UserDto.class)));
+    }
+
     @PatchMapping("/{userId}")
     public UserDto updateUser(@PathVariable Long userId, @Valid @RequestBody UserDto userDto) {
         return userService.updateUser(userId, userDto);
@@ -39,4 +67,49 @@ public class UserController {
     public void deleteUser(@PathVariable Long userId) {
         userService.deleteUser(userId);
     }
-}
\ No newline at end of file
+
+    // Непустые строки NDJSON по очереди. Каждая строка разбирается отдельно: после ошибки разбора
+    // чтение продолжается со следующей строки, а ошибка уходит в результат строки как ValidationException
+    private static final class NdjsonRows implements Iterator<UserDto> {
+        private final BufferedReader reader;
+        private final ObjectReader rowReader;
+        private String line;
+
+        private NdjsonRows(BufferedReader reader, ObjectReader rowReader) {
+            this.reader = reader;
+            this.rowReader = rowReader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (line == null) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        return false;
+                    }
+                    if (!next.isBlank()) {
+                        line = next;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public UserDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String row = line;
+            line = null;
+            try {
+                return rowReader.readValue(row);
+            } catch (JsonProcessingException e) {
+                throw new ValidationException("Некорректная строка NDJSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
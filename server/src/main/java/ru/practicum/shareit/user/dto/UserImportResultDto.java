@@ -0,0 +1,17 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Итог импорта одной строки: созданный пользователь или причина отказа
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResultDto {
+    // Номер строки во входных данных, с нуля
+    private Integer index;
+    private UserImportStatus status;
+    private UserDto user;
+    private String error;
+}
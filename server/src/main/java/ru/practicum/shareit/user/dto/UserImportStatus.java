@@ -0,0 +1,7 @@
+package ru.practicum.shareit.user.dto;
+
+public enum UserImportStatus {
+    CREATED,
+    CONFLICT,
+    INVALID
+}
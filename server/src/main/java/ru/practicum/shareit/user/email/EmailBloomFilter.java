@@ -0,0 +1,233 @@
+package ru.practicum.shareit.user.email;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Фильтр Блума по email пользователей. «Точно свободен» позволяет не проверять уникальность запросом к БД,
+// «возможно занят» означает обычную проверку. Гонки двух одинаковых email ловит ограничение UQ_USER_EMAIL.
+// Биты из фильтра не удаляются: освобождённые адреса лишь добавляют ложных «возможно занят» до пересборки.
+@Component
+public class EmailBloomFilter {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final int expectedEmails;
+    private final double falsePositiveRate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter absentCounter;
+    private final Counter maybePresentCounter;
+
+    private long[] bits = new long[0];
+    private long bitCount;
+    private int hashCount;
+    // На сколько адресов рассчитан фильтр, сколько в него добавлено и сколько из них уже освобождено
+    private long sizedFor;
+    private long added;
+    private long released;
+    private volatile boolean stale = true;
+
+    public EmailBloomFilter(UserRepository userRepository,
+                            EmailFilterProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.enabled = properties.isEnabled();
+        this.expectedEmails = Math.max(1, properties.getExpectedEmails());
+        this.falsePositiveRate = properties.getFalsePositiveRate();
+
+        Gauge.builder("shareit.users.email-filter.entries", this, EmailBloomFilter::entries)
+                .description("Количество адресов, добавленных в фильтр email")
+                .register(meterRegistry);
+        absentCounter = Counter.builder("shareit.users.email-filter.checks")
+                .description("Проверки email по фильтру")
+                .tag("result", "absent")
+                .register(meterRegistry);
+        maybePresentCounter = Counter.builder("shareit.users.email-filter.checks")
+                .description("Проверки email по фильтру")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            stale = false;
+            allocate(Math.max(expectedEmails, userRepository.count() * 2));
+
+            // Загружаем пользователей порциями по возрастанию id
+            long lastId = 0;
+            List<User> batch;
+            do {
+                batch = userRepository.findByIdGreaterThanOrderById(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (User user : batch) {
+                    addInternal(user.getEmail());
+                    lastId = user.getId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // false только для адреса, которого точно нет в БД
+    public boolean mightContain(String email) {
+        if (!enabled) {
+            return true;
+        }
+        if (stale) {
+            rebuild();
+        }
+
+        boolean result;
+        lock.readLock().lock();
+        try {
+            result = containsInternal(email);
+        } finally {
+            lock.readLock().unlock();
+        }
+        (result ? maybePresentCounter : absentCounter).increment();
+        return result;
+    }
+
+    // Адрес добавляется сразу, чтобы его увидели параллельные проверки, и ещё раз после фиксации:
+    // перестроение, прочитавшее БД до фиксации, его бы потеряло. Откат оставляет лишний бит, это безопасно
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+
+        addLocked(email);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addLocked(email);
+            }
+        });
+    }
+
+    // Адрес освобождён сменой email
+    public void release() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            released++;
+            markStaleIfDegraded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        release();
+    }
+
+    public long entries() {
+        lock.readLock().lock();
+        try {
+            return added;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(String email) {
+        lock.writeLock().lock();
+        try {
+            // До первой сборки добавлять некуда: сборка прочитает адрес из БД
+            if (bitCount > 0) {
+                addInternal(email);
+                markStaleIfDegraded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Фильтр пересобирается, когда добавлено больше адресов, чем он рассчитан, или половина расчётного
+    // объёма занята освобождёнными адресами: в обоих случаях доля ложных срабатываний растёт
+    private void markStaleIfDegraded() {
+        if (added > sizedFor || released > sizedFor / 2) {
+            stale = true;
+        }
+    }
+
+    private void allocate(long capacity) {
+        double ln2 = Math.log(2);
+        long requiredBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bits = new long[(int) Math.max(1, (requiredBits + 63) / 64)];
+        bitCount = bits.length * 64L;
+        hashCount = (int) Math.max(1, Math.round((double) bitCount / capacity * ln2));
+        sizedFor = capacity;
+        added = 0;
+        released = 0;
+    }
+
+    private void addInternal(String email) {
+        long hash = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash, i);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+        added++;
+    }
+
+    private boolean containsInternal(String email) {
+        long hash = hash(email);
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash, i);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Двойное хеширование: i-я позиция = h1 + i * h2 по модулю размера
+    private long index(long hash, int i) {
+        long h1 = hash & 0xFFFFFFFFL;
+        long h2 = (hash >>> 32) | 1;
+        return (h1 + i * h2) % bitCount;
+    }
+
+    // FNV-1a по символам с финальным перемешиванием MurmurHash3
+    private static long hash(String email) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            h ^= email.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
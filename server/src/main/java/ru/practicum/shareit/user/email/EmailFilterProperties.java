@@ -0,0 +1,17 @@
+package ru.practicum.shareit.user.email;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.users.email-filter")
+public class EmailFilterProperties {
+    // Выключенный фильтр отвечает «возможно занят», и уникальность email всегда проверяется запросом к БД
+    private boolean enabled = true;
+    // Минимальное число адресов, на которое рассчитывается фильтр; при переполнении он пересобирается вдвое больше
+    private int expectedEmails = 100_000;
+    // Доля ложных «возможно занят» при расчётном заполнении
+    private double falsePositiveRate = 0.01;
+}
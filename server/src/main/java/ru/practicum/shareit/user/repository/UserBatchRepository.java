@@ -0,0 +1,10 @@
+package ru.practicum.shareit.user.repository;
+
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+public interface UserBatchRepository {
+    // Вставляет пользователей одним пакетом JDBC и проставляет им сгенерированные id
+    void insertAll(List<User> users);
+}
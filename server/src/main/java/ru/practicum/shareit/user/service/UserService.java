@@ -1,7 +1,9 @@
 package ru.practicum.shareit.user.service;
 
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface UserService {
@@ -16,4 +18,7 @@ public interface UserService {
     void deleteUser(Long userId);
 
     boolean userExists(Long userId);
+
+    // Нечитаемая строка: next() бросает ValidationException, строка попадает в результат как INVALID
+    List<UserImportResultDto> importUsers(Iterator<UserDto> users);
 }
\ No newline at end of file
@@ -1,24 +1,43 @@
 package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResultDto;
+import ru.practicum.shareit.user.dto.UserImportStatus;
+import ru.practicum.shareit.user.email.EmailBloomFilter;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final String EMAIL_CONSTRAINT = "UQ_USER_EMAIL";
+    private static final int IMPORT_BATCH_SIZE = 500;
+
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EmailBloomFilter emailFilter;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional
@@ -26,8 +45,8 @@ public class UserServiceImpl implements UserService {
         validateUser(userDto);
         checkEmailUniqueness(userDto.getEmail(), null);
 
-        User user = UserMapper.toUser(userDto);
-        user = userRepository.save(user);
+        User user = saveUser(UserMapper.toUser(userDto));
+        emailFilter.add(user.getEmail());
 
         return UserMapper.toUserDto(user);
     }
@@ -41,12 +60,17 @@ public class UserServiceImpl implements UserService {
             existingUser.setName(userDto.getName());
         }
 
-        if (userDto.getEmail() != null && !userDto.getEmail().equals(existingUser.getEmail())) {
+        boolean emailChanged = userDto.getEmail() != null && !userDto.getEmail().equals(existingUser.getEmail());
+        if (emailChanged) {
             checkEmailUniqueness(userDto.getEmail(), userId);
             existingUser.setEmail(userDto.getEmail());
         }
 
-        userRepository.save(existingUser);
+        saveUser(existingUser);
+        if (emailChanged) {
+            emailFilter.add(existingUser.getEmail());
+            emailFilter.release();
+        }
         return UserMapper.toUserDto(existingUser);
     }
 
@@ -70,6 +94,7 @@ public class UserServiceImpl implements UserService {
             throw new UserNotFoundException("Пользователь с ID " + userId + " не найден");
         }
         userRepository.deleteById(userId);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
     }
 
     @Override
@@ -77,6 +102,48 @@ public class UserServiceImpl implements UserService {
         return userRepository.existsById(userId);
     }
 
+    // Строки читаются по одной, проверяются по тем же правилам, что и при создании, и пишутся пачками,
+    // поэтому в памяти держится только текущая пачка и итоги. Ошибка в строке попадает в её результат
+    // и не прерывает импорт
+    @Override
+    public List<UserImportResultDto> importUsers(Iterator<UserDto> users) {
+        List<UserImportResultDto> results = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> batch = new ArrayList<>();
+        for (int i = 0; users.hasNext(); i++) {
+            UserDto userDto;
+            try {
+                userDto = users.next();
+            } catch (ValidationException e) {
+                results.add(new UserImportResultDto(i, UserImportStatus.INVALID, null, e.getMessage()));
+                continue;
+            }
+            if (userDto == null) {
+                results.add(new UserImportResultDto(i, UserImportStatus.INVALID, null, "Пустая строка"));
+                continue;
+            }
+            try {
+                validateUser(userDto);
+            } catch (ValidationException e) {
+                results.add(new UserImportResultDto(i, UserImportStatus.INVALID, userDto, e.getMessage()));
+                continue;
+            }
+            if (!seenEmails.add(userDto.getEmail())) {
+                results.add(emailConflict(i, userDto));
+                continue;
+            }
+            // Итог строки пачки заполнится после записи
+            results.add(null);
+            batch.add(new ImportRow(i, new User(null, userDto.getName(), userDto.getEmail())));
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                importBatch(batch, results);
+                batch = new ArrayList<>();
+            }
+        }
+        importBatch(batch, results);
+        return results;
+    }
+
     private User getUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("Пользователь с ID " + userId + " не найден"));
@@ -94,7 +161,83 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    // Пачка пишется в своей транзакции: конфликт с параллельной вставкой откатывает только её,
+    // и строки пачки повторяются по одной, чтобы найти конфликтующую
+    private void importBatch(List<ImportRow> batch, List<UserImportResultDto> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(batch, results));
+        } catch (DataIntegrityViolationException e) {
+            if (!isEmailConflict(e)) {
+                throw e;
+            }
+            if (batch.size() == 1) {
+                ImportRow row = batch.getFirst();
+                results.set(row.index(), emailConflict(row.index(), UserMapper.toUserDto(row.user())));
+                return;
+            }
+            batch.forEach(row -> importBatch(List.of(row), results));
+        }
+    }
+
+    // Занятость проверяется одним запросом на пачку и только для адресов, которые фильтр не исключил
+    private void insertBatch(List<ImportRow> batch, List<UserImportResultDto> results) {
+        List<String> maybeTaken = batch.stream()
+                .map(row -> row.user().getEmail())
+                .filter(emailFilter::mightContain)
+                .toList();
+        Set<String> taken = maybeTaken.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userRepository.findExistingEmails(maybeTaken));
+
+        List<ImportRow> fresh = new ArrayList<>();
+        for (ImportRow row : batch) {
+            if (taken.contains(row.user().getEmail())) {
+                results.set(row.index(), emailConflict(row.index(), UserMapper.toUserDto(row.user())));
+            } else {
+                fresh.add(row);
+            }
+        }
+
+        userRepository.insertAll(fresh.stream().map(ImportRow::user).toList());
+        for (ImportRow row : fresh) {
+            emailFilter.add(row.user().getEmail());
+            results.set(row.index(), new UserImportResultDto(row.index(), UserImportStatus.CREATED,
+                    UserMapper.toUserDto(row.user()), null));
+        }
+    }
+
+    private static UserImportResultDto emailConflict(int index, UserDto userDto) {
+        return new UserImportResultDto(index, UserImportStatus.CONFLICT, userDto,
+                "Пользователь с email " + userDto.getEmail() + " уже существует");
+    }
+
+    // Запись сразу отправляется в БД, чтобы нарушение UQ_USER_EMAIL пришло отсюда, а не при фиксации
+    private User saveUser(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConflict(e)) {
+                throw new ConflictException("Пользователь с email " + user.getEmail() + " уже существует");
+            }
+            throw e;
+        }
+    }
+
+    private boolean isEmailConflict(DataIntegrityViolationException e) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName()
+                : e.getMostSpecificCause().getMessage();
+        return constraint != null && constraint.toUpperCase(Locale.ROOT).contains(EMAIL_CONSTRAINT);
+    }
+
+    // Адрес, которого точно нет в фильтре, не проверяется запросом: совпадение при гонке поймает UQ_USER_EMAIL
     private void checkEmailUniqueness(String email, Long excludeUserId) {
+        if (!emailFilter.mightContain(email)) {
+            return;
+        }
         if (excludeUserId == null) {
             Optional<User> existingUser = userRepository.findByEmail(email);
             if (existingUser.isPresent()) {
@@ -107,4 +250,7 @@ public class UserServiceImpl implements UserService {
             }
         }
     }
-}
\ No newline at end of file
+
+    private record ImportRow(int index, User user) {
+    }
+}
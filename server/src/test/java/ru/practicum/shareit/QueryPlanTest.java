@@ -0,0 +1,175 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+@Transactional
+class QueryPlanTest {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class StatementRecorderConfig {
+        @Bean
+        HibernatePropertiesCustomizer statementRecorder() {
+            StatementInspector inspector = sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    CommentRepository commentRepository;
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private User user;
+    private Item item;
+    private ItemRequest request;
+
+    @BeforeEach
+    void setup() {
+        // Наполняем таблицы, чтобы оптимизатор выбирал план по реальному числу строк
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(userRepository.save(new User(null, "user" + i, "plan" + i + "@example.com")));
+        }
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            requests.add(itemRequestRepository.save(
+                    new ItemRequest(null, "запрос " + i, users.get(i % 50), now.minusHours(i))));
+        }
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(itemRepository.save(new Item(null, "вещь " + i, "описание " + i, true,
+                    users.get(i % 50), i % 2 == 0 ? requests.get(i) : null)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Item booked = items.get(i % 200);
+            User booker = users.get((i + 1) % 50);
+            bookingRepository.save(new Booking(null, now.plusDays(i % 30 - 15), now.plusDays(i % 30 - 14),
+                    booked, booker, BookingStatus.values()[i % BookingStatus.values().length]));
+            if (i % 5 == 0) {
+                commentRepository.save(new Comment(null, "отзыв " + i, booked, booker, now));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        user = users.get(7);
+        item = items.get(7);
+        request = requests.get(8);
+    }
+
+    // Запросы бронирований по бронирующему и по вещи идут через индексы
+    @Test
+    void bookingQueriesUseIndexesTest() {
+        // Один и тот же запрос для любой роли и состояния
+        for (BookingRole role : BookingRole.values()) {
+            for (BookingState state : BookingState.values()) {
+                assertIndexed(() -> bookingRepository.findBookings(role, user.getId(), state, now, null, 0, 10));
+                assertIndexed(() -> bookingRepository.findBookings(role, user.getId(), state, now,
+                        new KeysetCursor(now, 1L), 0, 10));
+            }
+        }
+        assertIndexed(() -> bookingRepository.findBookingView(1L, user.getId()));
+        assertIndexed(() -> bookingRepository.findByIdWithItemAndBooker(1L));
+        assertIndexed(() -> bookingRepository.findNextBooking(item.getId(), now));
+        assertIndexed(() -> bookingRepository.findLastBooking(item.getId(), now));
+        assertIndexed(() -> bookingRepository.findLastAndNextBookings(List.of(item.getId()), now));
+        assertIndexed(() -> bookingRepository.findCompletedBookingsByUser(item.getId(), user.getId(), now));
+        assertIndexed(() -> bookingRepository.existsApprovedOverlap(item.getId(), now, now.plusDays(1)));
+        assertIndexed(() -> bookingRepository.findBookedItemIds(List.of(item.getId(), 1L), now, now.plusDays(1)));
+    }
+
+    // Запросы вещей, отзывов и запросов на вещи идут через индексы
+    @Test
+    void itemAndRequestQueriesUseIndexesTest() {
+        assertIndexed(() -> itemRepository.findByOwnerIdOrderById(user.getId()));
+        assertIndexed(() -> itemRepository.findByOwnerIdAndName(user.getId(), item.getName()));
+        assertIndexed(() -> itemRepository.findResponsesByRequestIds(List.of(request.getId())));
+        assertIndexed(() -> commentRepository.findByItemId(item.getId()));
+        assertIndexed(() -> commentRepository.findByItemIdIn(List.of(item.getId())));
+        assertIndexed(() -> itemRequestRepository.findByRequestorId(user.getId(), PageRequest.of(0, 10)));
+        assertIndexed(() -> itemRequestRepository.findByRequestorIdAfter(user.getId(), now, 1L, PageRequest.of(0, 10)));
+        assertIndexed(() -> itemRequestRepository.findLatest(PageRequest.of(0, 10)));
+    }
+
+    private void assertIndexed(Runnable query) {
+        STATEMENTS.clear();
+        query.run();
+        List<String> statements = List.copyOf(STATEMENTS);
+        assertFalse(statements.isEmpty(), "Запрос не был выполнен");
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("tableScan"), "Полный просмотр таблицы:\n" + sql + "\n" + plan);
+        }
+    }
+
+    // Параметры не влияют на выбор индекса в H2, поэтому план строится с NULL вместо значений
+    private String explain(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
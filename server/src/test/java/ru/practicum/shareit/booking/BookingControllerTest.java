@@ -1,6 +1,10 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -10,24 +14,40 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -46,6 +66,14 @@ class BookingControllerTest {
     ItemRepository itemRepository;
     @Autowired
     BookingRepository bookingRepository;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    BookingService bookingService;
+    @Autowired
+    BookingIntervalIndex intervalIndex;
+    @Autowired
+    TransactionTemplate transactionTemplate;
 
     private User owner;
     private User booker;
@@ -113,6 +141,40 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.id").value((int) bookingId));
     }
 
+    // Бронирование по ID читается одним запросом, доступ только у бронирующего и владельца
+    @Test
+    void getBookingByIdProjectionTest() throws Exception {
+        User stranger = userRepository.save(new User(null, "stranger", "stranger@example.com"));
+        Booking booking = bookingRepository.save(new Booking(null, LocalDateTime.now().plusHours(1),
+                LocalDateTime.now().plusHours(2), item, booker, BookingStatus.WAITING));
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get("/bookings/{id}", booking.getId())
+                            .header("X-Sharer-User-Id", owner.getId()))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.item.name").value("Дрель"))
+                    .andExpect(jsonPath("$.booker.name").value("booker"));
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        mockMvc.perform(get("/bookings/{id}", booking.getId())
+                        .header("X-Sharer-User-Id", stranger.getId()))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/bookings/{id}", booking.getId() + 1000)
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isNotFound());
+    }
+
     // Тестирование получения списка бронирований пользователя
     @Test
     void getUserBookingsTest() throws Exception {
@@ -180,6 +242,128 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$", not(empty())));
     }
 
+    // Тестирование запрета бронирования на даты, пересекающиеся с подтверждённым бронированием.
+    // Подтверждение попадает в кэш интервалов после фиксации, поэтому тест работает без общей транзакции
+    // и удаляет пользователей в конце
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void createOverlappingBookingConflictTest() throws Exception {
+        try {
+            LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+            long bookingId = createBooking(start, start.plusDays(2));
+            mockMvc.perform(patch("/bookings/{id}", bookingId)
+                            .header("X-Sharer-User-Id", owner.getId())
+                            .param("approved", "true"))
+                    .andExpect(status().isOk());
+
+            BookingRequestDto overlapping = new BookingRequestDto(item.getId(), start.plusDays(1), start.plusDays(3));
+            mockMvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", booker.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(overlapping)))
+                    .andDo(print())
+                    .andExpect(status().isConflict());
+
+            // Бронирование, начинающееся в момент окончания подтверждённого, допустимо
+            BookingRequestDto adjacent = new BookingRequestDto(item.getId(), start.plusDays(2), start.plusDays(3));
+            mockMvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", booker.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(adjacent)))
+                    .andDo(print())
+                    .andExpect(status().isOk());
+        } finally {
+            userRepository.deleteById(owner.getId());
+            userRepository.deleteById(booker.getId());
+        }
+    }
+
+    // Тестирование откаченного подтверждения: до фиксации и после отката интервал не виден в кэше,
+    // и пересекающееся бронирование создаётся
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void rolledBackApprovalNotVisibleInIntervalCacheTest() throws Exception {
+        try {
+            LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+            LocalDateTime end = start.plusDays(2);
+            long bookingId = createBooking(start, end);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                bookingService.updateBookingStatus(owner.getId(), bookingId, true);
+                assertFalse(intervalIndex.overlaps(item.getId(), start, end));
+                status.setRollbackOnly();
+            });
+            assertFalse(intervalIndex.overlaps(item.getId(), start, end));
+
+            BookingRequestDto overlapping = new BookingRequestDto(item.getId(), start.plusDays(1), start.plusDays(3));
+            mockMvc.perform(post("/bookings")
+                            .header("X-Sharer-User-Id", booker.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(overlapping)))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(patch("/bookings/{id}", bookingId)
+                            .header("X-Sharer-User-Id", owner.getId())
+                            .param("approved", "true"))
+                    .andExpect(status().isOk());
+            assertTrue(intervalIndex.overlaps(item.getId(), start, end));
+        } finally {
+            userRepository.deleteById(owner.getId());
+            userRepository.deleteById(booker.getId());
+        }
+    }
+
+    // Тестирование запрета подтверждения второго из пересекающихся ожидающих бронирований
+    @Test
+    void approveOverlappingBookingConflictTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long first = createBooking(start, start.plusDays(2));
+        long second = createBooking(start.plusDays(1), start.plusDays(3));
+
+        mockMvc.perform(patch("/bookings/{id}", first)
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/bookings/{id}", second)
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isConflict());
+
+        // Отклонить пересекающееся бронирование можно
+        mockMvc.perform(patch("/bookings/{id}", second)
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("approved", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("REJECTED"));
+    }
+
+    // Тестирование подтверждения, пересекающегося с бронированием, подтверждённым в обход кэша
+    // (например, другим экземпляром сервера): пересечение находит проверка по БД
+    @Test
+    void approveBookingOverlappingApprovalMissedByCacheTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long waiting = createBooking(start, start.plusDays(2));
+        bookingRepository.save(new Booking(null, start.plusDays(1), start.plusDays(3), item, booker,
+                BookingStatus.APPROVED));
+
+        mockMvc.perform(patch("/bookings/{id}", waiting)
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isConflict());
+
+        // После конфликта кэш вещи перечитан из БД и сразу отклоняет новое пересечение
+        BookingRequestDto overlapping = new BookingRequestDto(item.getId(), start.plusDays(2), start.plusDays(4));
+        mockMvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(overlapping)))
+                .andExpect(status().isConflict());
+    }
+
     // Тест обработки ошибок
     @Test
     void missingHeaderBadRequestTest() throws Exception {
@@ -188,6 +372,146 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    private long createBooking(LocalDateTime start, LocalDateTime end) throws Exception {
+        BookingRequestDto dto = new BookingRequestDto(item.getId(), start, end);
+        String resp = mockMvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(resp).get("id").asLong();
+    }
+
+    // Страница бронирований владельца собирается одним запросом вместе с вещами и бронирующими
+    @Test
+    void getOwnerBookingsSingleQueryTest() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            Item extra = itemRepository.save(new Item(null, "Вещь " + i, "описание", true, owner, null));
+            User other = userRepository.save(new User(null, "booker" + i, "booker" + i + "@example.com"));
+            bookingRepository.save(new Booking(null, now.plusDays(i + 1), now.plusDays(i + 2), extra, other,
+                    BookingStatus.WAITING));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get("/bookings/owner")
+                            .header("X-Sharer-User-Id", owner.getId())
+                            .param("state", "FUTURE")
+                            .param("from", "0")
+                            .param("size", "3"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(3)))
+                    .andExpect(jsonPath("$[0].item.name").value("Вещь 4"))
+                    .andExpect(jsonPath("$[0].booker.name").value("booker4"))
+                    .andExpect(jsonPath("$[2].item.name").value("Вещь 2"));
+
+            // Проверка пользователя и сама страница
+            assertEquals(2, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    // Постраничный обход по курсору: без повторов и пропусков, в том числе при одинаковом начале
+    @Test
+    void getUserBookingsByCursorTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        for (int i = 0; i < 5; i++) {
+            bookingRepository.save(new Booking(null, start.plusHours(i / 2), start.plusHours(i / 2 + 1), item, booker,
+                    BookingStatus.WAITING));
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/bookings")
+                    .header("X-Sharer-User-Id", booker.getId())
+                    .param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn();
+            for (JsonNode booking : objectMapper.readTree(result.getResponse().getContentAsString())) {
+                assertTrue(seen.add(booking.get("id").asInt()));
+            }
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("cursor", "не-курсор"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Смещение from не обязано быть кратным size
+    @Test
+    void getUserBookingsUnalignedOffsetTest() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 5; i++) {
+            bookingRepository.save(new Booking(null, start.plusHours(i), start.plusHours(i + 1), item, booker,
+                    BookingStatus.WAITING));
+        }
+
+        mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("from", "3")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    // Выгрузка истории владельца в NDJSON. Выгрузка читает данные в своей транзакции,
+    // поэтому тест работает без общей транзакции и удаляет пользователей в конце
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void exportOwnerBookingsTest() throws Exception {
+        try {
+            LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+            for (int i = 0; i < 3; i++) {
+                bookingRepository.save(new Booking(null, start.plusHours(i), start.plusHours(i + 1), item, booker,
+                        BookingStatus.WAITING));
+            }
+
+            MvcResult result = mockMvc.perform(get("/bookings/owner/export")
+                            .header("X-Sharer-User-Id", owner.getId()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            String[] lines = body.split("\n");
+            assertEquals(3, lines.length);
+            JsonNode first = objectMapper.readTree(lines[0]);
+            assertEquals("Дрель", first.get("item").get("name").asText());
+            assertEquals("booker", first.get("booker").get("name").asText());
+            assertEquals(start.plusHours(2), LocalDateTime.parse(first.get("start").asText()));
+
+            mockMvc.perform(get("/bookings/owner/export")
+                            .header("X-Sharer-User-Id", owner.getId() + 1000))
+                    .andExpect(status().isNotFound());
+        } finally {
+            userRepository.deleteById(owner.getId());
+            userRepository.deleteById(booker.getId());
+        }
+    }
+
     // Метод подготовки данных для состояний
     private void seedDataForState(BookingState state) throws Exception {
         LocalDateTime now = LocalDateTime.now();
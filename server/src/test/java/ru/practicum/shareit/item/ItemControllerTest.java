@@ -1,6 +1,9 @@
 package ru.practicum.shareit.item;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -12,12 +15,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -26,6 +32,9 @@ import java.time.LocalDateTime;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -47,6 +56,12 @@ class ItemControllerTest {
     ItemRepository itemRepository;
     @Autowired
     BookingRepository bookingRepository;
+    @Autowired
+    CommentRepository commentRepository;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    BookingIntervalIndex intervalIndex;
 
     private User owner;
     private User booker;
@@ -259,6 +274,42 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].comments", hasSize(0)));
     }
 
+    // Тестирование количества SQL-запросов при получении списка вещей владельца: не зависит от числа вещей
+    @Test
+    void getAllItemsWithFixedStatementCountTest() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            Item extra = itemRepository.save(new Item(null, "Вещь " + i, "описание", true, owner, null));
+            bookingRepository.save(new Booking(null, now.minusHours(2), now.minusHours(1), extra, booker, BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(null, now.plusHours(1), now.plusHours(2), extra, booker, BookingStatus.APPROVED));
+            commentRepository.save(new Comment(null, "коммент " + i, extra, booker, now));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get("/items")
+                            .header("X-Sharer-User-Id", owner.getId()))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(6)))
+                    .andExpect(jsonPath("$[0].lastBooking").doesNotExist())
+                    .andExpect(jsonPath("$[0].comments", hasSize(0)))
+                    .andExpect(jsonPath("$[5].lastBooking.bookerId").value(booker.getId().intValue()))
+                    .andExpect(jsonPath("$[5].nextBooking.bookerId").value(booker.getId().intValue()))
+                    .andExpect(jsonPath("$[5].comments", hasSize(1)))
+                    .andExpect(jsonPath("$[5].comments[0].authorName").value("booker"));
+
+            // Пользователь, вещи, бронирования и комментарии с авторами
+            assertEquals(4, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
     // Тестирование успешного удаления предмета владельцем
     @Test
     void deleteItemTest() throws Exception {
@@ -285,6 +336,26 @@ class ItemControllerTest {
                 .andExpect(status().isForbidden());
     }
 
+    // Тестирование удаления вещи из кэша интервалов бронирований вместе с самой вещью
+    @Test
+    void deleteItemEvictsIntervalsTest() throws Exception {
+        Item newItem = itemRepository.save(new Item(null, "Уровень", "лазерный", true, owner, null));
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+        mockMvc.perform(get("/items/{id}/availability", newItem.getId())
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("from", base.toString())
+                        .param("to", base.plusDays(1).toString()))
+                .andExpect(status().isOk());
+        assertTrue(intervalIndex.contains(newItem.getId()));
+
+        mockMvc.perform(delete("/items/{id}", newItem.getId())
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andDo(print())
+                .andExpect(status().isOk());
+        assertFalse(intervalIndex.contains(newItem.getId()));
+    }
+
     // Тестирование функциональности поиска предметов по тексту
     @Test
     void searchItemsTest() throws Exception {
@@ -295,6 +366,145 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$", not(empty())));
     }
 
+    // Тестирование постраничного поиска по смещению и по курсору
+    @Test
+    void searchItemsWithPaginationTest() throws Exception {
+        Item second = itemRepository.save(new Item(null, "Дрель ударная", "мощная", true, owner, null));
+        Item third = itemRepository.save(new Item(null, "Шуруповёрт", "почти дрель", true, owner, null));
+        itemRepository.save(new Item(null, "Дрель сломанная", "недоступна", false, owner, null));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", "0")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(item.getId().intValue()))
+                .andExpect(jsonPath("$[1].id").value(second.getId().intValue()));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", "2")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(third.getId().intValue()));
+
+        // Смещение не кратно размеру страницы: страница начинается ровно со строки from
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", "1")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(second.getId().intValue()))
+                .andExpect(jsonPath("$[1].id").value(third.getId().intValue()));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("size", "2")
+                        .param("cursor", String.valueOf(second.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(third.getId().intValue()));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("size", "0"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    // Тестирование поиска вещей, свободных в заданный период
+    @Test
+    void searchItemsFreeInPeriodTest() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 6, 1, 10, 0);
+        Item other = itemRepository.save(new Item(null, "Дрель ударная", "мощная", true, owner, null));
+        bookingRepository.save(new Booking(null, start.minusDays(1), start.plusDays(1), item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, start, start.plusDays(1), other, booker, BookingStatus.WAITING));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("start", start.toString())
+                        .param("end", start.plusDays(2).toString()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(other.getId().intValue()));
+
+        // Период после окончания подтверждённого бронирования
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("start", start.plusDays(1).toString())
+                        .param("end", start.plusDays(2).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("start", start.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Тестирование календаря свободных промежутков: учитываются только подтверждённые бронирования
+    @Test
+    void getItemAvailabilityTest() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 10, 0);
+        bookingRepository.save(new Booking(null, base.plusDays(1), base.plusDays(2), item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, base.plusDays(4), base.plusDays(5), item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, base.plusDays(2), base.plusDays(3), item, booker, BookingStatus.WAITING));
+
+        mockMvc.perform(get("/items/{id}/availability", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("from", base.toString())
+                        .param("to", base.plusDays(6).toString()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].start").value("2030-01-01T10:00:00"))
+                .andExpect(jsonPath("$[0].end").value("2030-01-02T10:00:00"))
+                .andExpect(jsonPath("$[1].start").value("2030-01-03T10:00:00"))
+                .andExpect(jsonPath("$[1].end").value("2030-01-05T10:00:00"))
+                .andExpect(jsonPath("$[2].start").value("2030-01-06T10:00:00"))
+                .andExpect(jsonPath("$[2].end").value("2030-01-07T10:00:00"));
+
+        // Диапазон целиком внутри бронирования
+        mockMvc.perform(get("/items/{id}/availability", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("from", base.plusDays(1).plusHours(1).toString())
+                        .param("to", base.plusDays(1).plusHours(2).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/items/{id}/availability", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("from", base.plusDays(1).toString())
+                        .param("to", base.toString()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/items/{id}/availability", 999999)
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("from", base.toString())
+                        .param("to", base.plusDays(1).toString()))
+                .andExpect(status().isNotFound());
+
+        // Без пользователя или от имени несуществующего календарь недоступен
+        mockMvc.perform(get("/items/{id}/availability", item.getId())
+                        .param("from", base.toString())
+                        .param("to", base.plusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/items/{id}/availability", item.getId())
+                        .header("X-Sharer-User-Id", 999999)
+                        .param("from", base.toString())
+                        .param("to", base.plusDays(1).toString()))
+                .andExpect(status().isNotFound());
+    }
+
     // Тестирование успешного добавления комментария к предмету
     @Test
     void addCommentToItemTest() throws Exception {
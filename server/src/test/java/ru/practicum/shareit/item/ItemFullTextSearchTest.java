@@ -0,0 +1,133 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Полнотекстовый поиск работает только на PostgreSQL, поэтому тест поднимает встроенный сервер
+// и применяет schema-postgresql.sql
+@SpringBootTest(properties = "shareit.search.mode=full_text")
+@AutoConfigureMockMvc
+@Transactional
+class ItemFullTextSearchTest {
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+
+    private Item inName;
+    private Item inNameTwice;
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.driverClassName", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.sql.init.platform", () -> "postgresql");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        POSTGRES.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        // Слово в названии весит больше, чем в описании, поэтому порядок по релевантности не совпадает с id
+        User owner = userRepository.save(new User(null, "owner", "owner@example.com"));
+        for (int i = 0; i < 3; i++) {
+            itemRepository.save(new Item(null, "Инструмент " + i, "подходит как дрель", true, owner, null));
+        }
+        inName = itemRepository.save(new Item(null, "Дрель", "ударная", true, owner, null));
+        inNameTwice = itemRepository.save(new Item(null, "Дрель", "дрель с набором свёрл", true, owner, null));
+    }
+
+    // Тестирование постраничного поиска по релевантности: страницы по смещению складываются в полную выдачу
+    @Test
+    void searchByRankPagesTest() throws Exception {
+        List<Long> all = searchIds("0", "10");
+        assertEquals(5, all.size());
+        assertEquals(List.of(inNameTwice.getId(), inName.getId()), all.subList(0, 2));
+
+        List<Long> paged = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += 2) {
+            paged.addAll(searchIds(String.valueOf(from), "2"));
+        }
+        assertEquals(all, paged);
+
+        // Смещение не кратно размеру страницы
+        assertEquals(all.subList(1, 3), searchIds("1", "2"));
+    }
+
+    // Тестирование отказа от курсора: курсор по id не задаёт позицию в выдаче по релевантности
+    @Test
+    void searchByRankRejectsCursorTest() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("size", "2")
+                        .param("cursor", String.valueOf(inName.getId())))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> searchIds(String from, String size) throws Exception {
+        String body = mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", from)
+                        .param("size", size))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(lessThanOrEqualTo(Integer.parseInt(size)))))
+                .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode item : objectMapper.readTree(body)) {
+            ids.add(item.get("id").asLong());
+        }
+        return ids;
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder()
+                    .setLocaleConfig("encoding", "UTF8")
+                    .setLocaleConfig("locale", "C.UTF-8")
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "shareit.search.mode=index")
+@AutoConfigureMockMvc
+@Transactional
+class ItemSearchIndexTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    BookingRepository bookingRepository;
+    @Autowired
+    ItemSearchIndex searchIndex;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    void setup() {
+        // Тестовые данные сохраняются в обход сервиса, поэтому индекс перестраивается явно
+        owner = userRepository.save(new User(null, "owner", "owner@example.com"));
+        item = itemRepository.save(new Item(null, "Дрель аккумуляторная", "удобная", true, owner, null));
+        itemRepository.save(new Item(null, "Дрель сломанная", "недоступна", false, owner, null));
+        searchIndex.rebuild();
+    }
+
+    // Тестирование поиска подстроки без учёта регистра только среди доступных вещей
+    @Test
+    void searchSubstringTest() throws Exception {
+        mockMvc.perform(get("/items/search")
+                        .param("text", "ДРЕЛ"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(item.getId().intValue()))
+                .andExpect(jsonPath("$[0].available").value(true));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "уд"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "перфоратор"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    // Тестирование инкрементального обновления индекса при создании, изменении и удалении вещи
+    @Test
+    void incrementalUpdateTest() throws Exception {
+        ItemDto dto = new ItemDto(null, "Перфоратор", "бетон сверлит", true, null);
+        String resp = mockMvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(resp).get("id").asLong();
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "сверл"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value((int) id));
+
+        ItemDto patch = new ItemDto(null, null, null, false, null);
+        mockMvc.perform(patch("/items/{id}", id)
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "сверл"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(delete("/items/{id}", item.getId())
+                        .header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    // Тестирование постраничного поиска по индексу
+    @Test
+    void searchWithPaginationTest() throws Exception {
+        Item second = itemRepository.save(new Item(null, "Дрель ударная", "мощная", true, owner, null));
+        Item third = itemRepository.save(new Item(null, "Шуруповёрт", "почти дрель", true, owner, null));
+        searchIndex.rebuild();
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", "2")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(third.getId().intValue()));
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("size", "1")
+                        .param("cursor", String.valueOf(item.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(second.getId().intValue()));
+    }
+
+    // Тестирование исключения вещей, занятых подтверждёнными бронированиями в заданный период
+    @Test
+    void searchFreeInPeriodTest() throws Exception {
+        Item second = itemRepository.save(new Item(null, "Дрель ударная", "мощная", true, owner, null));
+        Item third = itemRepository.save(new Item(null, "Дрель угловая", "компактная", true, owner, null));
+        User booker = userRepository.save(new User(null, "booker", "booker@example.com"));
+        LocalDateTime start = LocalDateTime.of(2030, 6, 1, 10, 0);
+        bookingRepository.save(new Booking(null, start, start.plusDays(2), item, booker, BookingStatus.APPROVED));
+        searchIndex.rebuild();
+
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("start", start.plusDays(1).toString())
+                        .param("end", start.plusDays(3).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(second.getId().intValue()))
+                .andExpect(jsonPath("$[1].id").value(third.getId().intValue()));
+
+        // Смещение отсчитывается среди свободных вещей
+        mockMvc.perform(get("/items/search")
+                        .param("text", "дрель")
+                        .param("from", "1")
+                        .param("size", "1")
+                        .param("start", start.plusDays(1).toString())
+                        .param("end", start.plusDays(3).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(third.getId().intValue()));
+    }
+
+    // Тестирование метрик размера индекса
+    @Test
+    void indexMetricsTest() {
+        assertEquals(1.0, meterRegistry.get("shareit.search.index.items").gauge().value());
+        assertTrue(meterRegistry.get("shareit.search.index.terms").gauge().value() > 0);
+        assertTrue(meterRegistry.get("shareit.search.index.memory").gauge().value() > 0);
+    }
+}
@@ -1,6 +1,10 @@
 package ru.practicum.shareit.request;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +12,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -18,7 +24,11 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -43,6 +53,8 @@ class ItemRequestControllerTest {
     ItemRequestRepository itemRequestRepository;
     @Autowired
     ItemRepository itemRepository;
+    @Autowired
+    EntityManager entityManager;
 
     private User u1;
     private User u2;
@@ -130,6 +142,60 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$[0].items[0].requestId").value(r.getId().intValue()));
     }
 
+    // Собственные запросы выдаются страницами, курсор продолжает список без пропусков и повторов
+    @Test
+    void getOwnItemRequestsByCursorTest() throws Exception {
+        LocalDateTime created = LocalDateTime.now().minusDays(1).withNano(0);
+        for (int i = 0; i < 5; i++) {
+            itemRequestRepository.save(new ItemRequest(null, "Запрос " + i, u1, created.plusHours(i / 2)));
+        }
+
+        mockMvc.perform(get(BASE_URL)
+                        .header(USER_HEADER, u1.getId())
+                        .param("from", "2")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        // Смещение, не кратное размеру страницы, отсчитывается в строках: порядок created DESC, id DESC
+        mockMvc.perform(get(BASE_URL)
+                        .header(USER_HEADER, u1.getId())
+                        .param("from", "3")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].description").value("Запрос 1"))
+                .andExpect(jsonPath("$[1].description").value("Запрос 0"));
+
+        Set<Integer> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get(BASE_URL)
+                    .header(USER_HEADER, u1.getId())
+                    .param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn();
+            for (JsonNode itemRequest : objectMapper.readTree(result.getResponse().getContentAsString())) {
+                assertTrue(seen.add(itemRequest.get("id").asInt()));
+            }
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+
+        mockMvc.perform(get(BASE_URL)
+                        .header(USER_HEADER, u1.getId())
+                        .param("cursor", "не-курсор"))
+                .andExpect(status().isBadRequest());
+    }
+
     // Тестирование получения собственных запросов с несуществующим ID пользователя
     @Test
     void getOwnItemRequestsWithNonExistentUserTest() throws Exception {
@@ -165,6 +231,43 @@ class ItemRequestControllerTest {
                 .andExpect(jsonPath("$[1].description").value("Нужен молоток"));
     }
 
+    // Вещи для страницы запросов загружаются одним запросом, без загрузки владельцев
+    @Test
+    void getAllItemRequestsBatchedItemsTest() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            ItemRequest r = itemRequestRepository.save(new ItemRequest(null, "Запрос " + i, u2, LocalDateTime.now().minusHours(i + 1)));
+            itemRepository.save(new Item(null, "Ответ " + i, "описание", true, u1, r));
+            itemRepository.save(new Item(null, "Ещё ответ " + i, "описание", true, u2, r));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get(BASE_URL + "/all")
+                            .header(USER_HEADER, u1.getId())
+                            .param("from", "0")
+                            .param("size", "10"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(5))
+                    .andExpect(jsonPath("$[0].description").value("Запрос 0"))
+                    .andExpect(jsonPath("$[0].items.length()").value(2))
+                    .andExpect(jsonPath("$[0].items[0].name").value("Ответ 0"))
+                    .andExpect(jsonPath("$[0].items[0].ownerId").value(u1.getId().intValue()))
+                    .andExpect(jsonPath("$[0].items[1].ownerId").value(u2.getId().intValue()))
+                    .andExpect(jsonPath("$[4].items.length()").value(2));
+
+            // Проверка пользователя, страница запросов и вещи для всей страницы
+            assertEquals(3, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
     // Тестирование получения всех запросов с несуществующим пользователем
     @Test
     void getAllItemRequestsWithNonExistentUserTest() throws Exception {
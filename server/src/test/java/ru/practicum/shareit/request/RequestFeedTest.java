@@ -0,0 +1,191 @@
+package ru.practicum.shareit.request;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.RequestFeed;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Лента на три записи, чтобы проверить и чтение из памяти, и переход к БД за её пределами
+@SpringBootTest(properties = {
+        "shareit.requests.feed.enabled=true",
+        "shareit.requests.feed.capacity=3"
+})
+@AutoConfigureMockMvc
+@Transactional
+class RequestFeedTest {
+
+    private static final String BASE_URL = "/requests";
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ItemRequestRepository itemRequestRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    RequestFeed requestFeed;
+    @Autowired
+    EntityManager entityManager;
+
+    private User u1;
+    private User u2;
+
+    @BeforeEach
+    void setUp() {
+        // Создание двух тестовых пользователей перед каждым тестом
+        u1 = userRepository.save(new User(null, "user1", "user1@example.com"));
+        u2 = userRepository.save(new User(null, "user2", "user2@example.com"));
+    }
+
+    // Тестирование чтения чужих запросов из ленты: свои отсеиваются, вещи на месте, к БД только проверка пользователя
+    @Test
+    void getAllItemRequestsFromFeedTest() throws Exception {
+        ItemRequest older = itemRequestRepository.save(new ItemRequest(null, "Старый", u2, LocalDateTime.now().minusHours(2)));
+        itemRequestRepository.save(new ItemRequest(null, "Новый", u2, LocalDateTime.now().minusHours(1)));
+        itemRequestRepository.save(new ItemRequest(null, "Свой", u1, LocalDateTime.now()));
+        itemRepository.save(new Item(null, "Ответ", "описание", true, u1, older));
+        entityManager.flush();
+        entityManager.clear();
+        requestFeed.rebuild();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get(BASE_URL + "/all")
+                            .header(USER_HEADER, u1.getId())
+                            .param("from", "0")
+                            .param("size", "10"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].description").value("Новый"))
+                    .andExpect(jsonPath("$[0].items.length()").value(0))
+                    .andExpect(jsonPath("$[1].description").value("Старый"))
+                    .andExpect(jsonPath("$[1].items[0].name").value("Ответ"))
+                    .andExpect(jsonPath("$[1].items[0].ownerId").value(u1.getId().intValue()));
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        mockMvc.perform(get(BASE_URL + "/all")
+                        .header(USER_HEADER, u2.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Свой"));
+    }
+
+    // Тестирование страницы за пределами неполной ленты: она читается из БД
+    @Test
+    void getAllItemRequestsBeyondFeedTest() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            itemRequestRepository.save(new ItemRequest(null, "Запрос " + i, u2, LocalDateTime.now().minusHours(i + 1)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        requestFeed.rebuild();
+        assertEquals(3, requestFeed.size());
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get(BASE_URL + "/all")
+                            .header(USER_HEADER, u1.getId())
+                            .param("from", "0")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].description").value("Запрос 0"))
+                    .andExpect(jsonPath("$[1].description").value("Запрос 1"));
+            assertEquals(1, statistics.getPrepareStatementCount());
+
+            statistics.clear();
+            mockMvc.perform(get(BASE_URL + "/all")
+                            .header(USER_HEADER, u1.getId())
+                            .param("from", "2")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].description").value("Запрос 2"))
+                    .andExpect(jsonPath("$[1].description").value("Запрос 3"));
+            assertEquals(3, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    // Тестирование обновления ленты новым запросом и вещью-ответом. Лента меняется после фиксации транзакции,
+    // поэтому тест работает без общей транзакции и удаляет пользователей в конце
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void feedUpdatedAfterCommitTest() throws Exception {
+        try {
+            requestFeed.rebuild();
+
+            ItemRequestDto request = new ItemRequestDto(null, "Нужна стремянка", null, null);
+            String body = mockMvc.perform(post(BASE_URL)
+                            .header(USER_HEADER, u2.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            Long requestId = objectMapper.readValue(body, ItemRequestDto.class).getId();
+            assertEquals(1, requestFeed.size());
+
+            ItemDto item = new ItemDto(null, "Стремянка", "три ступени", true, requestId);
+            mockMvc.perform(post("/items")
+                            .header(USER_HEADER, u1.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(item)))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get(BASE_URL + "/all")
+                            .header(USER_HEADER, u1.getId()))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].id").value(requestId.intValue()))
+                    .andExpect(jsonPath("$[0].items.length()").value(1))
+                    .andExpect(jsonPath("$[0].items[0].name").value("Стремянка"));
+        } finally {
+            userRepository.deleteById(u1.getId());
+            userRepository.deleteById(u2.getId());
+        }
+    }
+}
@@ -1,16 +1,29 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -25,6 +38,10 @@ class UserControllerTest {
     MockMvc mockMvc;
     @Autowired
     ObjectMapper objectMapper;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    EntityManager entityManager;
 
     // Тестирование успешного создания пользователя
     @Test
@@ -112,4 +129,188 @@ class UserControllerTest {
                 .andDo(print())
                 .andExpect(status().isNotFound());
     }
+
+    // Тестирование создания пользователя с новым email: фильтр пропускает проверку, к БД только вставка
+    @Test
+    void createUserWithNewEmailSkipsLookupTest() throws Exception {
+        UserDto dto = new UserDto(null, "fresh", "fresh-" + System.nanoTime() + "@example.com");
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(post("/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(dto)))
+                    .andExpect(status().isOk());
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    // Тестирование повторного email: адрес есть в фильтре, конфликт находит проверка
+    @Test
+    void createUserWithDuplicateEmailTest() throws Exception {
+        UserDto dto = new UserDto(null, "u1", "dup@example.com");
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserDto(null, "u2", "dup@example.com"))))
+                .andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    // Тестирование email, занятого в обход фильтра: конфликт находит ограничение UQ_USER_EMAIL
+    @Test
+    void createUserWithEmailTakenBypassingFilterTest() throws Exception {
+        userRepository.saveAndFlush(new User(null, "direct", "direct@example.com"));
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserDto(null, "u1", "direct@example.com"))))
+                .andDo(print())
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Пользователь с email direct@example.com уже существует"));
+    }
+
+    // Тестирование смены email на занятый в обход фильтра
+    @Test
+    void updateUserWithEmailTakenBypassingFilterTest() throws Exception {
+        User user = userRepository.saveAndFlush(new User(null, "u1", "u1@example.com"));
+        userRepository.saveAndFlush(new User(null, "direct", "direct@example.com"));
+
+        mockMvc.perform(patch("/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserDto(null, null, "direct@example.com"))))
+                .andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    // Тестирование импорта массивом JSON: неверные строки и повторы не прерывают импорт
+    @Test
+    void importUsersJsonTest() throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserDto(null, "old", "old@example.com"))))
+                .andExpect(status().isOk());
+
+        List<UserDto> users = List.of(
+                new UserDto(null, "i1", "i1@example.com"),
+                new UserDto(null, "i2", "no-at-sign"),
+                new UserDto(null, "i3", "i1@example.com"),
+                new UserDto(null, "i4", "old@example.com"),
+                new UserDto(null, " ", "i5@example.com"),
+                new UserDto(null, "i6", "i6@example.com"));
+
+        mockMvc.perform(post("/users/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(users)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].user.id").exists())
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].error").value("Некорректный формат email"))
+                .andExpect(jsonPath("$[2].status").value("CONFLICT"))
+                .andExpect(jsonPath("$[3].status").value("CONFLICT"))
+                .andExpect(jsonPath("$[3].error").value("Пользователь с email old@example.com уже существует"))
+                .andExpect(jsonPath("$[4].status").value("INVALID"))
+                .andExpect(jsonPath("$[5].index").value(5))
+                .andExpect(jsonPath("$[5].status").value("CREATED"));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)));
+    }
+
+    // Тестирование импорта NDJSON
+    @Test
+    void importUsersNdjsonTest() throws Exception {
+        String body = "{\"name\":\"n1\",\"email\":\"n1@example.com\"}\n"
+                + "{\"name\":\"n2\",\"email\":\"n2@example.com\"}\n";
+
+        mockMvc.perform(post("/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].user.email").value("n2@example.com"));
+
+    }
+
+    // Тестирование импорта NDJSON с нечитаемой строкой в середине: она получает INVALID,
+    // строки вокруг неё импортируются
+    @Test
+    void importUsersNdjsonMalformedLineTest() throws Exception {
+        String body = "{\"name\":\"m1\",\"email\":\"m1@example.com\"}\n"
+                + "{\"name\":\"m2\",\"email\":\n"
+                + "\n"
+                + "{\"name\":\"m3\",\"email\":\"m3@example.com\"}\n"
+                + "{\"name\":\"m4\"";
+
+        mockMvc.perform(post("/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].error").value(startsWith("Некорректная строка NDJSON")))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[2].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].user.email").value("m3@example.com"))
+                .andExpect(jsonPath("$[3].status").value("INVALID"));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    // Тестирование импорта адреса, занятого в обход фильтра: пачка откатывается и повторяется по строкам.
+    // Пачка пишется в своей транзакции, поэтому тест работает без общей и удаляет пользователей в конце
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importUsersWithEmailTakenBypassingFilterTest() throws Exception {
+        User direct = userRepository.saveAndFlush(new User(null, "direct", "import-direct@example.com"));
+        List<Long> createdIds = new ArrayList<>();
+        try {
+            List<UserDto> users = List.of(
+                    new UserDto(null, "b1", "import-b1@example.com"),
+                    new UserDto(null, "b2", "import-direct@example.com"),
+                    new UserDto(null, "b3", "import-b3@example.com"));
+
+            String response = mockMvc.perform(post("/users/import")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(users)))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].status").value("CREATED"))
+                    .andExpect(jsonPath("$[1].status").value("CONFLICT"))
+                    .andExpect(jsonPath("$[2].status").value("CREATED"))
+                    .andReturn().getResponse().getContentAsString();
+
+            for (JsonNode result : objectMapper.readTree(response)) {
+                if ("CREATED".equals(result.get("status").asText())) {
+                    createdIds.add(result.get("user").get("id").asLong());
+                }
+            }
+            assertEquals(2, createdIds.size());
+            assertTrue(userRepository.findByEmail("import-b3@example.com").isPresent());
+        } finally {
+            createdIds.forEach(userRepository::deleteById);
+            userRepository.deleteById(direct.getId());
+        }
+    }
 }